@@ -0,0 +1,13 @@
+#!/bin/sh
+# headless batch run of the shaded jar (mvn -B package -pl core -am), with
+# the class data sharing archive when it was built (-Pappcds):
+#   ./batch.sh nbNodes=5000 mobilityModel=MANHATTAN seed=42
+#   MAIN=proj.MonteCarlo ./batch.sh replications=500 seed=1
+# JAVA_OPTS is added to the options of the JVM.
+target=$(dirname "$0")/core/target
+archive=
+if [ -f "$target/dymgraphs.jsa" ]; then
+	archive="-XX:SharedArchiveFile=$target/dymgraphs.jsa -Xshare:auto"
+fi
+exec java $archive -Djava.awt.headless=true \
+	$JAVA_OPTS -cp "$target/dymgraphs.jar" "${MAIN:-proj.Broadcasting}" "$@"
@@ -0,0 +1,41 @@
+package proj;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* -----------------------------------------------------------------
+ * Construction of the initial random geometric graph, the same
+ * graph for each invocation.
+ * -----------------------------------------------------------------
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class GeneratorBenchmark {
+
+	@Param({"300", "3000", "10000"})
+	public int nbNodes;
+
+	@Param({"70", "150"})
+	public int d;
+
+	@Benchmark
+	public SingleGraph randomGeometricGraph() {
+		return Generator.randomGeometricGraphW(nbNodes, d, 1000, new SplittableRandom(42));
+	}
+}
@@ -0,0 +1,87 @@
+package proj;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* -----------------------------------------------------------------
+ * The parts of a time step taken separately:
+ * - the moves of all the stations (moveStraight and the choice of
+ *   the destinations),
+ * - the moves followed by the update of the links (verifyEdges),
+ * - a flooding round in which every station transmits the message.
+ * -----------------------------------------------------------------
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class HotPathBenchmark {
+
+	@Param({"300", "3000"})
+	public int nbNodes;
+
+	@Param({"70", "150"})
+	public int d;
+
+	@Param({"RWP", "MANHATTAN", "MARKOVIAN"})
+	public String mobilityModel;
+
+	Broadcasting simulation;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Properties p = new Properties();
+		p.setProperty("nbNodes", Integer.toString(nbNodes));
+		p.setProperty("d", Integer.toString(d));
+		p.setProperty("mobilityModel", mobilityModel);
+		p.setProperty("seed", "42");
+		p.setProperty("printStatistics", "false");
+		simulation = new Broadcasting(p, false);
+	}
+
+	/**
+	 * before each flooding round, every station has the message
+	 * and has not transmitted it yet
+	 */
+	@State(Scope.Thread)
+	public static class Messages {
+
+		@Setup(Level.Invocation)
+		public void reset(HotPathBenchmark b) {
+			b.simulation.flooding.informAll();
+		}
+	}
+
+	@Benchmark
+	public void move() {
+		simulation.moveStations();
+	}
+
+	@Benchmark
+	public void moveAndVerifyEdges() {
+		simulation.moveStations();
+		simulation.verifyEdges();
+	}
+
+	@Benchmark
+	public int floodingRound(Messages messages) {
+		Flooding flooding = simulation.flooding;
+		flooding.step(simulation.nbIterations+1);
+		return flooding.nbOfReceptions[simulation.state.first()];
+	}
+}
@@ -0,0 +1,128 @@
+package proj;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* -----------------------------------------------------------------
+ * One time step of a headless Broadcasting simulation (flooding,
+ * moves, links and stations), without and with the statistics that
+ * are computed after each iteration. The simulation is initialized
+ * once per trial and keeps running from one invocation to the next,
+ * as it does in a batch run.
+ * -----------------------------------------------------------------
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class StepBenchmark {
+
+	/**
+	 * parameters of the simulation
+	 */
+	@State(Scope.Thread)
+	public static abstract class Parameters {
+
+		@Param({"300", "3000"})
+		public int nbNodes;
+
+		@Param({"70", "150"})
+		public int d;
+
+		@Param({"RWP", "MANHATTAN", "MARKOVIAN"})
+		public String mobilityModel;
+
+		@Param({"1", "2"})
+		public int Scenario;
+
+		@Param({"GRID", "KINETIC", "VERLET"}) // KINETIC: GRID for Scenario 2
+		public String topologyUpdate;
+
+		@Param({"1"}) // -p threads=1,2,4,8 for the scaling of ParallelStep
+		public int threads;
+
+		Broadcasting simulation;
+
+		Properties properties() {
+			Properties p = new Properties();
+			p.setProperty("nbNodes", Integer.toString(nbNodes));
+			p.setProperty("d", Integer.toString(d));
+			p.setProperty("mobilityModel", mobilityModel);
+			p.setProperty("Scenario", Integer.toString(Scenario));
+			p.setProperty("topologyUpdate", topologyUpdate);
+			p.setProperty("threads", Integer.toString(threads));
+			p.setProperty("seed", "42");
+			p.setProperty("maxIterations", Integer.toString(Integer.MAX_VALUE));
+			p.setProperty("printStatistics", "false");
+			return p;
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Simulation extends Parameters {
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			simulation = new Broadcasting(properties(), false);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			simulation.close();
+		}
+	}
+
+	/**
+	 * the nervousness and the components are maintained, and the
+	 * statistics are written to a null stream
+	 */
+	@State(Scope.Thread)
+	public static class ObservedSimulation extends Parameters {
+
+		PrintStream out;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			out = System.out;
+			System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+			Properties p = properties();
+			p.setProperty("printIterations", "true");
+			simulation = new Broadcasting(p, false);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			simulation.close();
+			System.setOut(out);
+		}
+	}
+
+	@Benchmark
+	public boolean step(Simulation s) {
+		return s.simulation.step();
+	}
+
+	@Benchmark
+	public boolean stepWithStatistics(ObservedSimulation s) {
+		boolean finished = s.simulation.step();
+		s.simulation.iterationStatistics(s.simulation.nbIterations);
+		return finished;
+	}
+}
@@ -0,0 +1,85 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.PrintStream;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * Each benchmark driven by hand on a small simulation, as JMH would
+ * call it, so that a broken benchmark is found by mvn test rather
+ * than after a long run.
+ * -----------------------------------------------------------------
+ */
+class BenchmarkSmokeTest {
+
+	@Test
+	void generatorGivesTheSameGraphAtEachInvocation() {
+		GeneratorBenchmark b = new GeneratorBenchmark();
+		b.nbNodes = 300;
+		b.d = 150;
+		SingleGraph first = b.randomGeometricGraph();
+		SingleGraph second = b.randomGeometricGraph();
+		assertEquals(300, first.getNodeCount());
+		assertEquals(first.getEdgeCount(), second.getEdgeCount());
+	}
+
+	/**
+	 * every station has the message before the round, so each one
+	 * receives it from all its neighbours
+	 */
+	@Test
+	void floodingRoundFromEveryStation() {
+		HotPathBenchmark b = new HotPathBenchmark();
+		b.nbNodes = 300;
+		b.d = 150;
+		b.mobilityModel = "RWP";
+		b.setUp();
+		HotPathBenchmark.Messages messages = new HotPathBenchmark.Messages();
+		for(int i=0;i<3;i++) {
+			b.moveAndVerifyEdges();
+			messages.reset(b);
+			int first = b.simulation.state.first();
+			assertEquals(b.simulation.state.node[first].getDegree(), b.floodingRound(messages));
+		}
+		b.move();
+	}
+
+	@ParameterizedTest
+	@CsvSource({"1,GRID", "1,KINETIC", "1,VERLET", "2,GRID", "2,VERLET"})
+	void stepsOfEachTopologyUpdate(int scenario, String topologyUpdate) {
+		StepBenchmark b = new StepBenchmark();
+		StepBenchmark.Simulation plain = parameters(new StepBenchmark.Simulation(), scenario, topologyUpdate);
+		StepBenchmark.ObservedSimulation observed = parameters(new StepBenchmark.ObservedSimulation(), scenario, topologyUpdate);
+		plain.setUp();
+		PrintStream out = System.out;
+		observed.setUp();
+		try {
+			for(int t=0;t<30;t++) {
+				b.step(plain);
+				b.stepWithStatistics(observed);
+			}
+		} finally {
+			observed.tearDown();
+		}
+		assertSame(out, System.out);
+		// the statistics do not change the simulation
+		assertEquals(plain.simulation.g.getEdgeCount(), observed.simulation.g.getEdgeCount());
+		assertEquals(plain.simulation.nbIterations, observed.simulation.nbIterations);
+	}
+
+	static <P extends StepBenchmark.Parameters> P parameters(P p, int scenario, String topologyUpdate) {
+		p.nbNodes = 300;
+		p.d = 100;
+		p.mobilityModel = "MARKOVIAN";
+		p.Scenario = scenario;
+		p.topologyUpdate = topologyUpdate;
+		p.threads = 1;
+		return p;
+	}
+}
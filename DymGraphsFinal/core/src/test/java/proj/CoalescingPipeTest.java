@@ -0,0 +1,151 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.SinkAdapter;
+import org.junit.jupiter.api.Test;
+
+/* -----------------------------------------------------------------
+ * A graph fed by the batches of the pipe is the same as the source
+ * graph after each batch, whatever happened between two batches, and
+ * a batch only holds the last state of each element and attribute.
+ * -----------------------------------------------------------------
+ */
+class CoalescingPipeTest {
+
+	/**
+	 * counts the events of the batches
+	 */
+	static class Counter extends SinkAdapter {
+
+		List<String> events = new ArrayList<>();
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+			events.add("ae "+edgeId);
+		}
+
+		@Override
+		public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+			events.add("de "+edgeId);
+		}
+
+		@Override
+		public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+			events.add("+ "+nodeId+"."+attribute+"="+value);
+		}
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+			events.add("~ "+nodeId+"."+attribute+"="+newValue);
+		}
+
+		@Override
+		public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+			events.add("- "+nodeId+"."+attribute);
+		}
+	}
+
+	static void assertSameGraph(SingleGraph expected, SingleGraph actual, String message) {
+		assertEquals(expected.getNodeCount(), actual.getNodeCount(), message);
+		assertEquals(expected.getEdgeCount(), actual.getEdgeCount(), message);
+		for(Node u: expected.getNodeSet()) {
+			Node v = actual.getNode(u.getId());
+			assertNotNull(v, message+" node "+u.getId());
+			assertEquals(u.getAttributeCount(), v.getAttributeCount(), message+" node "+u.getId());
+			for(String key: u.getAttributeKeySet()) assertEquals((Object)u.getAttribute(key), v.getAttribute(key), message);
+		}
+		for(Edge e: expected.getEdgeSet()) {
+			Edge f = actual.getEdge(e.getId());
+			assertNotNull(f, message+" edge "+e.getId());
+			assertEquals(e.getNode0().getId(), f.getNode0().getId(), message);
+			assertEquals(e.getNode1().getId(), f.getNode1().getId(), message);
+			assertEquals((Object)e.getAttribute("w"), f.getAttribute("w"), message);
+		}
+	}
+
+	@Test
+	void sameGraphAfterEachBatch() {
+		SingleGraph source = new SingleGraph("source");
+		SingleGraph mirror = new SingleGraph("mirror");
+		CoalescingPipe pipe = new CoalescingPipe(CoalescingPipe.FRAME);
+		source.addSink(pipe);
+		pipe.addSink(mirror);
+		SplittableRandom alea = new SplittableRandom(3);
+		int nbNodes = 0, nbEdges = 0;
+		List<String> freeEdges = new ArrayList<>(); // ids reused as by Broadcasting.addLink
+		for(int t=0;t<3000;t++) {
+			int n = source.getNodeCount();
+			switch(alea.nextInt(8)) {
+			case 0:
+				source.addNode(Integer.toString(nbNodes++));
+				break;
+			case 1:
+				if(n > 0) source.removeNode(alea.nextInt(n));
+				break;
+			case 2: case 3:
+				if(n < 2) break;
+				Node u = source.getNode(alea.nextInt(n));
+				Node v = source.getNode(alea.nextInt(n));
+				if(u == v || u.hasEdgeBetween(v)) break;
+				String id = freeEdges.isEmpty() ? "e"+(nbEdges++) : freeEdges.remove(freeEdges.size()-1);
+				source.addEdge(id, u, v).addAttribute("w", alea.nextInt(5));
+				break;
+			case 4:
+				if(source.getEdgeCount() == 0) break;
+				Edge e = source.getEdge(alea.nextInt(source.getEdgeCount()));
+				source.removeEdge(e);
+				freeEdges.add(e.getId());
+				break;
+			case 5: case 6:
+				if(n > 0) source.getNode(alea.nextInt(n)).setAttribute("x", alea.nextInt(4));
+				break;
+			case 7:
+				if(n > 0) source.getNode(alea.nextInt(n)).removeAttribute("x");
+				break;
+			}
+			if(alea.nextInt(10) == 0) {
+				pipe.flush();
+				assertSameGraph(source, mirror, "event "+t);
+			}
+		}
+		pipe.flush();
+		assertSameGraph(source, mirror, "end");
+	}
+
+	@Test
+	void onlyTheLastStateIsSent() {
+		SingleGraph source = new SingleGraph("source");
+		CoalescingPipe pipe = new CoalescingPipe(CoalescingPipe.FRAME);
+		source.addSink(pipe);
+		source.addNode("a");
+		source.addNode("b");
+		source.addNode("c");
+		source.addEdge("0", "a", "b");
+		pipe.flush();
+		Counter counter = new Counter();
+		pipe.addSink(counter);
+		for(int i=0;i<10;i++) source.getNode("a").setAttribute("x", i);
+		source.getNode("b").addAttribute("y", 1);
+		source.getNode("b").removeAttribute("y"); // did not exist at the last batch
+		source.removeEdge("0");
+		source.addEdge("0", "b", "a"); // id of the removed edge
+		source.addEdge("1", "a", "c");
+		source.removeEdge("1"); // added and removed between two batches
+		pipe.flush();
+		assertEquals(List.of("de 0", "ae 0", "+ a.x=9"), counter.events);
+		counter.events.clear();
+		source.getNode("a").removeAttribute("x");
+		source.getNode("a").setAttribute("x", 4);
+		pipe.flush();
+		assertEquals(List.of("~ a.x=4"), counter.events);
+	}
+}
@@ -0,0 +1,113 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/* -----------------------------------------------------------------
+ * The number of components maintained from the topology changes is
+ * the one of a union-find over all the stations and links, after
+ * churn steps that remove several stations of a component before
+ * it is counted and reuse their slots.
+ * -----------------------------------------------------------------
+ */
+class ComponentsTest {
+
+	static final int SLOTS = 60;
+
+	Components components = new Components(8); // grows
+	boolean[] present = new boolean[SLOTS];
+	boolean[][] linked = new boolean[SLOTS][SLOTS];
+
+	void removeStation(int s) {
+		for(int v=0;v<SLOTS;v++) {
+			if(linked[s][v]) {
+				linked[s][v] = linked[v][s] = false;
+				components.linkRemoved(s, v);
+			}
+		}
+		present[s] = false;
+		components.stationRemoved(s);
+	}
+
+	void link(int u, int v) {
+		linked[u][v] = linked[v][u] = !linked[u][v];
+		if(linked[u][v]) components.linkAdded(u, v);
+		else components.linkRemoved(u, v);
+	}
+
+	int expected() {
+		int[] parent = new int[SLOTS];
+		int n = 0;
+		for(int s=0;s<SLOTS;s++) {
+			parent[s] = s;
+			if(present[s]) n++;
+		}
+		for(int u=0;u<SLOTS;u++) {
+			for(int v=u+1;v<SLOTS;v++) {
+				if(!linked[u][v]) continue;
+				int a = find(parent, u);
+				int b = find(parent, v);
+				if(a != b) {
+					parent[a] = b;
+					n--;
+				}
+			}
+		}
+		return n;
+	}
+
+	private static int find(int[] parent, int u) {
+		while(parent[u] != u) u = parent[u];
+		return u;
+	}
+
+	@Test
+	void sameAsAUnionFindOfAllTheLinks() {
+		SplittableRandom alea = new SplittableRandom(13);
+		for(int s=0;s<SLOTS;s++) {
+			present[s] = true;
+			components.stationAdded(s);
+		}
+		for(int t=0;t<400;t++) {
+			// links
+			for(int c=alea.nextInt(40);c>0;c--) {
+				int u = alea.nextInt(SLOTS);
+				int v = alea.nextInt(SLOTS);
+				if(u != v && present[u] && present[v]) link(u, v);
+			}
+			// churn: removals, then additions that may reuse the slots
+			for(int c=alea.nextInt(6);c>0;c--) {
+				int s = alea.nextInt(SLOTS);
+				if(present[s]) removeStation(s);
+			}
+			for(int c=alea.nextInt(6);c>0;c--) {
+				int s = alea.nextInt(SLOTS);
+				if(present[s]) continue;
+				present[s] = true;
+				components.stationAdded(s);
+				int v = alea.nextInt(SLOTS);
+				if(v != s && present[v]) link(s, v);
+			}
+			assertEquals(expected(), components.count(), "step "+t);
+		}
+	}
+
+	@Test
+	void removingAPathOneStationAtATime() {
+		for(int s=0;s<6;s++) {
+			present[s] = true;
+			components.stationAdded(s);
+			if(s > 0) link(s-1, s);
+		}
+		assertEquals(1, components.count());
+		removeStation(2);
+		removeStation(4);
+		components.stationAdded(2); // reused slot, alone
+		present[2] = true;
+		assertEquals(expected(), components.count());
+		assertEquals(4, components.count()); // {0,1} {2} {3} {5}
+	}
+}
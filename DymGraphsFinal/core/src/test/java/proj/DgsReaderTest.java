@@ -0,0 +1,84 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/* -----------------------------------------------------------------
+ * A seek gives the sinks the graph before the wanted step, forward
+ * or backward, on both sides of the entries of the index, from the
+ * keyframes taken on the way, and the steps read after it are those
+ * of a sequential read (see DgsRecorderTest). Tools.read streams the
+ * dgs files and leaves the other formats to Graph.read.
+ * -----------------------------------------------------------------
+ */
+class DgsReaderTest {
+
+	@TempDir
+	Path directory;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"run.dgs", "run.dgs.gz"})
+	void seekGivesTheGraphBeforeTheStep(String name) throws IOException {
+		String file = directory.resolve(name).toString();
+		List<String> graphs = new ArrayList<>();
+		DgsRecorderTest.record(file, graphs);
+		DgsReader reader = new DgsReader(file);
+		try {
+			assertEquals(DgsRecorderTest.STEPS, reader.getStepCount());
+			SingleGraph g = new SingleGraph("read");
+			reader.addSink(g);
+			assertTrue(reader.nextStep()); // the sinks are cleared by a seek
+			reader.seek(100);
+			assertEquals(graphs.get(99), DgsRecorderTest.graph(g), "seek 100");
+			// the keyframes of the entries before step 100 only
+			assertNotNull(reader.keyframes[0]);
+			assertNotNull(reader.keyframes[1]);
+			assertNull(reader.keyframes[2]);
+			for(int step: new int[] {129, 64, 1, 65, 150, 63, 128, 100}) {
+				reader.seek(step);
+				assertEquals(graphs.get(step-1), DgsRecorderTest.graph(g), "seek "+step);
+				for(int t=step;t<Math.min(step+3, DgsRecorderTest.STEPS+1);t++) {
+					assertTrue(reader.nextStep());
+					assertEquals(graphs.get(t), DgsRecorderTest.graph(g), "step "+t+" after seek "+step);
+				}
+			}
+			reader.seek(DgsRecorderTest.STEPS+1); // after the last step
+			assertEquals(graphs.get(DgsRecorderTest.STEPS), DgsRecorderTest.graph(g));
+			assertFalse(reader.nextStep());
+		} finally {
+			reader.close();
+		}
+		SingleGraph h = new SingleGraph("replayed");
+		assertEquals(21, Tools.replay(file, h, 130));
+		assertEquals(graphs.get(DgsRecorderTest.STEPS), DgsRecorderTest.graph(h));
+		assertEquals(graphs.get(DgsRecorderTest.STEPS), DgsRecorderTest.graph(Tools.read(file)));
+	}
+
+	@Test
+	void otherFormatsReadByTheGraph() throws IOException {
+		String file = directory.resolve("grid.gml").toString();
+		SingleGraph grid = new SingleGraph("grid");
+		for(int i=0;i<4;i++) grid.addNode(Integer.toString(i));
+		for(int i=0;i<4;i++) grid.addEdge(i+"-"+(i+1)%4, Integer.toString(i), Integer.toString((i+1)%4));
+		grid.write(file);
+		assertFalse(DgsReader.isDgs(file));
+		SingleGraph g = Tools.read(file);
+		assertEquals(4, g.getNodeCount());
+		assertEquals(4, g.getEdgeCount());
+		assertTrue(g.getNode("0").hasEdgeBetween("3"));
+	}
+}
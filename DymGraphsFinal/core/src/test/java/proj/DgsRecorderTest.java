@@ -0,0 +1,98 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/* -----------------------------------------------------------------
+ * A recording read step by step by FileSourceDGS gives the graph of
+ * the simulation at the end of each step, and the recorder does not
+ * allocate more chunks than those waiting for the writer, the one
+ * being written and the current one.
+ * -----------------------------------------------------------------
+ */
+class DgsRecorderTest {
+
+	final static int STEPS = 150;
+
+	@TempDir
+	Path directory;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"run.dgs", "run.dgs.gz"})
+	void readBackStepByStep(String name) throws IOException {
+		String file = directory.resolve(name).toString();
+		List<String> graphs = new ArrayList<>();
+		DgsRecorder recorder = record(file, graphs);
+		assertTrue(recorder.nbChunks <= DgsRecorder.QUEUE+2, recorder.nbChunks+" chunks");
+		assertEquals(DgsRecorder.QUEUE, recorder.full.remainingCapacity());
+
+		FileSourceDGS source = new FileSourceDGS();
+		SingleGraph g = new SingleGraph("read");
+		source.addSink(g);
+		source.begin(file);
+		try {
+			// the content of the graph, then one step at a time
+			for(int t=0;t<=STEPS;t++) {
+				assertTrue(source.nextStep(), "step "+t);
+				assertEquals(graphs.get(t), graph(g), "step "+t);
+			}
+			assertFalse(source.nextStep());
+			assertEquals(graphs.get(STEPS), graph(g));
+		} finally {
+			source.end();
+		}
+	}
+
+	/**
+	 * records a simulation with churn and Edge-Markovian links
+	 * @param file
+	 * @param graphs its graphs, before the first step then at the end
+	 * of each step
+	 * @return the closed recorder
+	 */
+	static DgsRecorder record(String file, List<String> graphs) {
+		Broadcasting sim = new Broadcasting(Tools.parameters(new String[] {"nbNodes=600", "seed=29",
+				"Scenario=2", "mobilityModel=MARKOVIAN", "broadcastingStrategy=NO_BROADCASTING",
+				"printStatistics=false", "dgs="+file}), false);
+		sim.state.syncPositions();
+		graphs.add(graph(sim.g));
+		for(int t=0;t<STEPS;t++) {
+			sim.step();
+			graphs.add(graph(sim.g));
+		}
+		DgsRecorder recorder = sim.recorder;
+		sim.close();
+		return recorder;
+	}
+
+	/**
+	 * @return the nodes with their position (as written in the file)
+	 * and the edges with their nodes, sorted
+	 */
+	static String graph(Graph g) {
+		TreeSet<String> elements = new TreeSet<>();
+		for(Node u: g.getNodeSet()) {
+			elements.add(String.format(Locale.US, "n %s %f %f", u.getId(),
+					u.getNumber("x"), u.getNumber("y")));
+		}
+		for(Edge e: g.getEdgeSet()) elements.add("e "+e.getId()+" "+e.getNode0().getId()+" "+e.getNode1().getId());
+		return String.join("\n", elements);
+	}
+}
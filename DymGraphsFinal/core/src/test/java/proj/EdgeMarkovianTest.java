@@ -0,0 +1,96 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+class EdgeMarkovianTest {
+
+	static final int N = 2000; // links (i, i+1)
+
+	/**
+	 * the changes drawn ahead give the transition probabilities p and
+	 * q of the step by step model, and a step gives exactly the links
+	 * whose state changed
+	 */
+	@Test
+	void transitionsOfTheStepByStepModel() {
+		double p = 0.9, q = 0.7;
+		EdgeMarkovian markov = new EdgeMarkovian(N, p, q, 42);
+		boolean[] state = new boolean[N];
+		for(int i=0;i<N;i++) state[i] = markov.add(i, i+1, 0);
+		long onOn = 0, on = 0, offOff = 0, off = 0, onSum = 0;
+		int steps = 300;
+		for(int t=1;t<=steps;t++) {
+			markov.step(t);
+			boolean[] flipped = new boolean[N];
+			for(int k=0;k<markov.nbChanged();k++) flipped[(int)(markov.changed(k) >>> 32)] = true;
+			for(int i=0;i<N;i++) {
+				boolean now = markov.isOn(i, i+1);
+				assertEquals(state[i] != now, flipped[i], "link "+i+" at step "+t);
+				if(state[i]) {
+					on++;
+					if(now) onOn++;
+				} else {
+					off++;
+					if(!now) offOff++;
+				}
+				state[i] = now;
+			}
+			assertEquals(N, markov.nbLinks());
+			onSum += markov.nbOn();
+		}
+		assertEquals(p, (double)onOn/on, 0.005);
+		assertEquals(q, (double)offOff/off, 0.005);
+		assertEquals((1-q)/(2-p-q), (double)onSum/((long)N*steps), 0.02); // stationary fraction on
+	}
+
+	/**
+	 * the states depend on the seed, the link and the step only, not
+	 * on the order in which the links appear
+	 */
+	@Test
+	void statesDoNotDependOnTheOrderOfTheLinks() {
+		EdgeMarkovian forward = new EdgeMarkovian(16, 0.8, 0.8, 7);
+		EdgeMarkovian backward = new EdgeMarkovian(16, 0.8, 0.8, 7);
+		EdgeMarkovian otherSeed = new EdgeMarkovian(16, 0.8, 0.8, 8);
+		for(int i=0;i<N;i++) forward.add(i, i+1, 0);
+		for(int i=N-1;i>=0;i--) backward.add(i+1, i, 0);
+		for(int i=0;i<N;i++) otherSeed.add(i, i+1, 0);
+		int differences = 0;
+		for(int t=1;t<=50;t++) {
+			forward.step(t);
+			backward.step(t);
+			otherSeed.step(t);
+			if(t == 20) { // links leaving and coming back
+				for(int i=0;i<N;i+=3) {
+					forward.forget(i, i+1);
+					backward.forget(i, i+1);
+				}
+				for(int i=(N-1)/3*3;i>=0;i-=3) backward.add(i, i+1, t);
+				for(int i=0;i<N;i+=3) forward.add(i, i+1, t);
+			}
+			assertEquals(forward.nbChanged(), backward.nbChanged());
+			for(int i=0;i<N;i++) {
+				assertEquals(forward.isOn(i, i+1), backward.isOn(i, i+1));
+				if(forward.isOn(i, i+1) != otherSeed.isOn(i, i+1)) differences++;
+			}
+		}
+		assertNotEquals(0, differences);
+	}
+
+	@Test
+	void aForgottenLinkDoesNotChangeAnymore() {
+		EdgeMarkovian markov = new EdgeMarkovian(4, 0, 0, 1); // changes at each step
+		markov.add(1, 2, 0);
+		markov.add(3, 4, 0);
+		markov.step(1);
+		assertEquals(2, markov.nbChanged());
+		markov.forget(3, 4);
+		markov.step(2);
+		assertEquals(1, markov.nbChanged());
+		assertEquals(LongHashSet.pair(1, 2), markov.changed(0));
+		assertEquals(1, markov.nbLinks());
+	}
+}
@@ -0,0 +1,75 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class EventQueueTest {
+
+	/**
+	 * each event comes out at the step it was scheduled for, also
+	 * when it is scheduled while the due events are processed and
+	 * after the wheel has turned many times
+	 */
+	@Test
+	void eventsComeOutAtTheirStep() {
+		int maxDelay = 5;
+		EventQueue queue = new EventQueue(maxDelay);
+		SplittableRandom alea = new SplittableRandom(3);
+		List<List<Long>> expected = new ArrayList<>();
+		for(int t=0;t<1000+maxDelay+1;t++) expected.add(new ArrayList<>());
+		long next = 0;
+		int pending = 0;
+		for(int t=1;t<=1000;t++) {
+			int n = queue.poll(t);
+			List<Long> due = new ArrayList<>();
+			for(int i=0;i<n;i++) {
+				due.add(queue.event(i));
+				pending--;
+				if(alea.nextBoolean()) { // scheduled while the due events are read
+					int delay = alea.nextInt(1, maxDelay+1);
+					expected.get(t+delay).add(next);
+					queue.schedule(t, delay, next++);
+					pending++;
+				}
+			}
+			due.sort(null);
+			assertEquals(expected.get(t), due, "step "+t);
+			for(int k=alea.nextInt(4);k>0;k--) {
+				int delay = alea.nextInt(1, maxDelay+1);
+				expected.get(t+delay).add(next);
+				queue.schedule(t, delay, next++);
+				pending++;
+			}
+			assertEquals(pending == 0, queue.isEmpty());
+		}
+		assertTrue(next > 1000);
+	}
+
+	@Test
+	void delaysOutsideTheWheelAreRejected() {
+		EventQueue queue = new EventQueue(3);
+		assertThrows(IllegalArgumentException.class, () -> queue.schedule(0, 0, 1));
+		assertThrows(IllegalArgumentException.class, () -> queue.schedule(0, 4, 1));
+	}
+
+	@Test
+	void clearDropsThePendingEvents() {
+		EventQueue queue = new EventQueue(1);
+		queue.schedule(0, 1, 7);
+		queue.schedule(1, 1, 8);
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		assertEquals(0, queue.poll(1));
+		queue.schedule(1, 1, 9);
+		assertEquals(1, queue.poll(2));
+		assertArrayEquals(new long[] {9}, new long[] {queue.event(0)});
+	}
+}
@@ -0,0 +1,59 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class FloodingWithDelayTest {
+
+	static Broadcasting run(String... parameters) {
+		String[] args = new String[parameters.length+6];
+		args[0] = "nbNodes=300";
+		args[1] = "envSize=600";
+		args[2] = "d=100";
+		args[3] = "TTL=15";
+		args[4] = "broadcastingStrategy=SIMPLE_FLOODING_WITH_DELAY";
+		args[5] = "printStatistics=false";
+		System.arraycopy(parameters, 0, args, 6, parameters.length);
+		return new Broadcasting(Tools.parameters(args));
+	}
+
+	@Test
+	void maxRADBelowOneIsRejected() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> run("maxRAD=0"));
+		assertTrue(e.getMessage().contains("maxRAD"), e.getMessage());
+	}
+
+	@Test
+	void delaysAreUniformOnOneToMaxRAD() {
+		int maxRAD = 7;
+		int[] count = new int[maxRAD+1];
+		for(int s=0;s<500;s++) {
+			for(int t=0;t<100;t++) count[Flooding.delay(42, s, t, maxRAD)]++;
+		}
+		assertEquals(0, count[0]);
+		for(int k=1;k<=maxRAD;k++) assertEquals(50000.0/maxRAD, count[k], 50000.0/maxRAD*0.05, "delay "+k);
+		assertEquals(1, Flooding.delay(42, 3, 5, 1));
+	}
+
+	/**
+	 * the topology updates find the links in different orders, the
+	 * delays must not depend on it
+	 */
+	@ParameterizedTest
+	@ValueSource(ints = {1, 2})
+	void sameResultsWhateverTheTopologyUpdate(int scenario) {
+		Broadcasting grid = run("seed=7", "maxIterations=120", "Scenario="+scenario, "topologyUpdate=GRID");
+		for(String update: new String[] {"KINETIC", "VERLET"}) {
+			Broadcasting other = run("seed=7", "maxIterations=120", "Scenario="+scenario, "topologyUpdate="+update);
+			assertEquals(grid.iterations, other.iterations, update);
+			assertEquals(grid.reachedStations, other.reachedStations, update);
+			assertEquals(grid.meanReceptions, other.meanReceptions, update);
+		}
+		assertTrue(grid.reachedStations > 0);
+	}
+}
@@ -0,0 +1,47 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * a batch run neither opens a viewer nor waits for a key, and prints
+ * the source then the final statistics
+ */
+class HeadlessTest {
+
+	@Test
+	void runsWithoutViewerNorKeyboard() {
+		InputStream in = System.in;
+		PrintStream out = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		Broadcasting sim;
+		try {
+			System.setIn(new InputStream() {
+				@Override
+				public int read() {
+					throw new AssertionError("a batch run reads the keyboard");
+				}
+			});
+			System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+			sim = new Broadcasting(Tools.parameters(new String[] {
+					"nbNodes=120", "d=150", "envSize=600", "seed=3", "maxIterations=30"}));
+		} finally {
+			System.setIn(in);
+			System.setOut(out);
+		}
+		assertNull(sim.viewerPipe);
+		assertTrue(sim.nbIterations <= 31); // stops once past maxIterations
+		String[] lines = printed.toString(StandardCharsets.UTF_8).trim().split("\\R");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].startsWith("source is: "), lines[0]);
+		assertTrue(lines[1].startsWith("Performance [120/150/"), lines[1]);
+	}
+}
@@ -0,0 +1,74 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * The links kept by the kinetic topology, from the ends of the
+ * segments, the changes of cell and the predicted crossings only,
+ * are those of the check of all the pairs at each step, and the run
+ * is the one of the spatial grid.
+ * -----------------------------------------------------------------
+ */
+class KineticTopologyTest {
+
+	static Broadcasting simulation(String topologyUpdate, String mobilityModel, int d, int nbNodes) {
+		return new Broadcasting(Tools.parameters(new String[] {"nbNodes="+nbNodes, "envSize=700", "seed=9",
+				"d="+d, "topologyUpdate="+topologyUpdate, "mobilityModel="+mobilityModel,
+				"maxIterations=100000", "TTL=4", "printStatistics=false"}), false);
+	}
+
+	@ParameterizedTest
+	@CsvSource({"RWP,70,250", "RWP,30,400", "MANHATTAN,70,250", "MANHATTAN,120,150", "MARKOVIAN,90,250"})
+	void sameLinksAsAllThePairs(String mobilityModel, int d, int nbNodes) {
+		Broadcasting kinetic = simulation("KINETIC", mobilityModel, d, nbNodes);
+		Broadcasting grid = simulation("GRID", mobilityModel, d, nbNodes);
+		assertNotNull(kinetic.kinetic);
+		StationState state = kinetic.state;
+		for(int t=0;t<400;t++) {
+			assertEquals(grid.step(), kinetic.step(), "step "+kinetic.nbIterations);
+			int nbLinks = 0;
+			for(int u=state.first(); u>=0; u=state.next(u)) {
+				for(int v=state.next(u); v>=0; v=state.next(v)) {
+					double distance = kinetic.distance(u,v);
+					boolean linked = kinetic.linked(u,v);
+					if(distance < d) assertTrue(linked, "stations "+u+" and "+v+" at step "+kinetic.nbIterations);
+					if(distance > d) assertFalse(linked, "stations "+u+" and "+v+" at step "+kinetic.nbIterations);
+					if(linked) nbLinks++;
+				}
+			}
+			assertEquals(nbLinks, kinetic.g.getEdgeCount());
+			assertEquals(grid.g.getEdgeCount(), kinetic.g.getEdgeCount());
+			assertEquals(grid.flooding.hasTheMessage, kinetic.flooding.hasTheMessage);
+		}
+	}
+
+	/**
+	 * the grid of the kinetic topology is only updated at the changes
+	 * of cell, and is always the one of the current positions
+	 */
+	@Test
+	void theCellsFollowTheStations() {
+		Broadcasting sim = simulation("KINETIC", "RWP", 50, 300);
+		for(int t=0;t<300;t++) {
+			sim.step();
+			for(int s=sim.state.first(); s>=0; s=sim.state.next(s)) {
+				assertEquals(sim.grid.column(sim.state.x[s]), sim.grid.cellX(s), "station "+s+" at step "+sim.nbIterations);
+				assertEquals(sim.grid.column(sim.state.y[s]), sim.grid.cellY(s), "station "+s+" at step "+sim.nbIterations);
+			}
+		}
+	}
+
+	@Test
+	void gridByDefault() {
+		Broadcasting sim = new Broadcasting(Tools.parameters(new String[] {"nbNodes=50", "printStatistics=false"}), false);
+		assertEquals(Broadcasting.GRID, sim.topologyUpdate);
+		assertEquals(null, sim.kinetic);
+	}
+}
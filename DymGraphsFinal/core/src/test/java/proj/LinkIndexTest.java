@@ -0,0 +1,37 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.graphstream.graph.Edge;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * The index of the links holds the pair of slots of each edge of the
+ * graph, and the ids of the removed edges are reused: no more ids are
+ * created than the largest number of edges of the graph.
+ * -----------------------------------------------------------------
+ */
+class LinkIndexTest {
+
+	@ParameterizedTest
+	@CsvSource({"1,RWP,GRID", "1,MANHATTAN,KINETIC", "1,RWP,VERLET", "2,RWP,GRID", "2,MARKOVIAN,VERLET"})
+	void oneLinkPerEdgeAndReusedIds(int scenario, String mobilityModel, String topologyUpdate) {
+		Broadcasting sim = new Broadcasting(Tools.parameters(new String[] {"nbNodes=200", "seed=9", "d=80",
+				"envSize=700", "topologyUpdate="+topologyUpdate, "broadcastingStrategy=NO_BROADCASTING",
+				"printStatistics=false", "Scenario="+scenario, "mobilityModel="+mobilityModel}), false);
+		int maxEdges = sim.g.getEdgeCount();
+		for(int t=0;t<150;t++) {
+			sim.step();
+			for(Edge e: sim.g.getEdgeSet()) {
+				int u = sim.state.slotOf(e.getNode0());
+				int v = sim.state.slotOf(e.getNode1());
+				assertTrue(sim.links.contains(LongHashSet.pair(u,v)), "edge "+e.getId()+" at step "+t);
+			}
+			assertEquals(sim.g.getEdgeCount(), sim.links.size(), "step "+t);
+			maxEdges = Math.max(maxEdges, sim.g.getEdgeCount());
+		}
+		assertTrue(sim.nbLinksCreated <= maxEdges, sim.nbLinksCreated+" ids for at most "+maxEdges+" edges");
+	}
+}
@@ -0,0 +1,53 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.graphstream.graph.Edge;
+import org.junit.jupiter.api.Test;
+
+/* -----------------------------------------------------------------
+ * The Edge-Markovian states are kept outside the graph: the graph
+ * keeps all the links within d, none of them carries a state, and
+ * the links on and off summed over the steps are those printed by
+ * the statistics.
+ * -----------------------------------------------------------------
+ */
+class MarkovianOverlayTest {
+
+	@Test
+	void theStatesStayOutsideTheGraph() {
+		Broadcasting sim = new Broadcasting(Tools.parameters(new String[] {
+				"nbNodes=150", "d=120", "envSize=600", "seed=4", "mobilityModel=MARKOVIAN",
+				"printStatistics=false"}), false);
+		long on = 0, off = 0;
+		for(int t=0;t<40;t++) {
+			sim.step();
+			int active = 0;
+			for(Edge e: sim.g.getEdgeSet()) {
+				assertNull(e.getAttribute("state"));
+				if(sim.isActive(e)) active++;
+			}
+			assertEquals(sim.g.getEdgeCount(), sim.markov.nbLinks(), "step "+sim.nbIterations);
+			assertEquals(active, sim.markov.nbOn(), "step "+sim.nbIterations);
+			on += active;
+			off += sim.g.getEdgeCount()-active;
+		}
+		assertEquals(on, sim.nbOn);
+		assertEquals(off, sim.nbOff);
+		PrintStream out = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		try {
+			System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+			sim.printStatistics = true;
+			sim.statistics(sim.nbIterations);
+		} finally {
+			System.setOut(out);
+		}
+		assertEquals("Links on/off:"+on+"/"+off, printed.toString(StandardCharsets.UTF_8).split("\\R")[0]);
+	}
+}
@@ -0,0 +1,52 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+class MonteCarloTest {
+
+	static MonteCarlo run(int threads) {
+		Properties parameters = Tools.parameters(new String[] {
+				"nbNodes=100", "d=150", "envSize=500", "maxIterations=40",
+				"replications=6", "seed=11", "threads="+threads});
+		MonteCarlo mc = new MonteCarlo(parameters);
+		mc.run();
+		return mc;
+	}
+
+	@Test
+	void resultsDoNotDependOnTheNumberOfThreads() {
+		MonteCarlo one = run(1);
+		MonteCarlo three = run(3);
+		assertArrayEquals(one.seeds, three.seeds);
+		for(int i=0;i<one.replications;i++) assertArrayEquals(one.results[i], three.results[i]);
+	}
+
+	@Test
+	void aReplicationIsReplayedAloneFromItsSeed() {
+		MonteCarlo mc = run(2);
+		Properties parameters = new Properties();
+		parameters.putAll(mc.parameters);
+		parameters.setProperty("seed", Long.toString(mc.seeds[4]));
+		parameters.setProperty("printStatistics", "false");
+		Broadcasting b = new Broadcasting(parameters);
+		assertArrayEquals(new double[] {b.iterations, b.reachedStations, b.meanReceptions}, mc.results[4]);
+	}
+
+	@Test
+	void intervalOfKnownResults() {
+		MonteCarlo mc = new MonteCarlo(new Properties());
+		mc.results = new double[][] {{1, 0, Double.NaN}, {3, 0, 2}, {5, 0, 4}};
+		double[] iterations = mc.meanAndInterval(0);
+		assertEquals(3, iterations[0], 1e-12);
+		assertEquals(1.96*2/Math.sqrt(3), iterations[1], 1e-12);
+		assertEquals(0, mc.meanAndInterval(1)[1], 1e-12);
+		assertEquals(3, mc.meanAndInterval(2)[0], 1e-12); // NaN ignored
+		assertTrue(mc.meanAndInterval(2)[1] > 0);
+	}
+}
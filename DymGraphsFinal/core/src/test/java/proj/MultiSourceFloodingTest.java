@@ -0,0 +1,70 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * Each source of a multi-source flooding (several words of sources)
+ * finishes at the step, reaches the stations and counts the
+ * receptions of a single Flooding from the same station, run with it
+ * over one simulation, with or without delay. The results of the
+ * simulation are the means over the sources, so that the receptions
+ * do not grow with the number of sources.
+ * -----------------------------------------------------------------
+ */
+class MultiSourceFloodingTest {
+
+	final static int[] SOURCES = {0, 1, 63, 64, 65, 127, 128, 149};
+
+	@ParameterizedTest
+	@CsvSource({"MULTI_SOURCE_FLOODING,1,RWP,3", "MULTI_SOURCE_FLOODING,1,RWP,1",
+			"MULTI_SOURCE_FLOODING,1,MARKOVIAN,3", "MULTI_SOURCE_FLOODING,2,MANHATTAN,3",
+			"MULTI_SOURCE_FLOODING,2,MARKOVIAN,3", "MULTI_SOURCE_FLOODING_WITH_DELAY,1,RWP,8",
+			"MULTI_SOURCE_FLOODING_WITH_DELAY,1,MANHATTAN,0", "MULTI_SOURCE_FLOODING_WITH_DELAY,1,MARKOVIAN,6"})
+	void sameResultsAsTheSingleFloodings(String strategy, int scenario, String mobilityModel, int TTL) {
+		// with delay, TTL above maxRAD: the stations transmit before losing the message
+		Broadcasting sim = new Broadcasting(Tools.parameters(new String[] {"nbNodes=200", "seed=37",
+				"maxIterations=150", "Scenario="+scenario, "mobilityModel="+mobilityModel, "TTL="+TTL,
+				"maxRAD=5", "broadcastingStrategy="+strategy, "sources=150", "printStatistics=false"}), false);
+		MultiSourceFlooding multi = sim.multiSource;
+		assertEquals(150, multi.nbSources);
+		assertEquals(3, multi.words);
+		Flooding[] singles = new Flooding[SOURCES.length];
+		for(int i=0;i<singles.length;i++) {
+			singles[i] = new Flooding(sim, sim.adjacency);
+			singles[i].broadcastingStrategy = strategy.endsWith("DELAY")
+					? Broadcasting.SIMPLE_FLOODING_WITH_DELAY : Broadcasting.SIMPLE_FLOODING;
+			sim.addTopologyListener(singles[i]);
+			singles[i].startFrom(SOURCES[i]);
+		}
+		// as the protocols of a simulation
+		boolean finished = false;
+		while(!finished) {
+			int t = sim.nbIterations+1;
+			for(Flooding f: singles) if(!f.finished) f.step(t);
+			finished = sim.step();
+			for(Flooding f: singles) if(f.finished && f.iterations == 0) f.statistics(t);
+		}
+		sim.statistics(sim.nbIterations);
+		for(Flooding f: singles) if(f.iterations == 0) f.statistics(sim.nbIterations);
+		sim.close();
+
+		int informing = 0;
+		for(Flooding single: singles) {
+			int i = single.source;
+			assertEquals(single.iterations, multi.iterations[i], "source "+i);
+			assertEquals(single.reachedStations, multi.reachedStations[i], "source "+i);
+			assertEquals(single.meanReceptions, multi.meanReceptions[i], "source "+i);
+			if(multi.informedStations[i] > 1) informing++;
+		}
+		assertTrue(informing > 0);
+		assertEquals(MultiSourceFlooding.mean(multi.meanReceptions), sim.meanReceptions);
+		float max = 0;
+		for(float m: multi.meanReceptions) if(m > max) max = m;
+		assertFalse(sim.meanReceptions > max, sim.meanReceptions+" receptions"); // NaN without reached station
+	}
+}
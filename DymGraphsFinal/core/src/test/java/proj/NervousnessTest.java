@@ -0,0 +1,114 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/* -----------------------------------------------------------------
+ * The nervousness maintained from the topology changes is the one
+ * computed from the whole sets of two consecutive iterations, also
+ * when an element changes several times during an iteration and
+ * when a slot is reused by a new station.
+ * -----------------------------------------------------------------
+ */
+class NervousnessTest {
+
+	static final int SLOTS = 40;
+
+	StationState state = new StationState(SLOTS);
+	Nervousness nervousness = new Nervousness(state);
+	boolean[] present = new boolean[SLOTS];
+	boolean[][] linked = new boolean[SLOTS][SLOTS];
+	int nbCreated = 0;
+
+	void addStation(int s) {
+		state.uid[s] = nbCreated++;
+		present[s] = true;
+		nervousness.stationAdded(s);
+	}
+
+	void removeStation(int s) {
+		for(int v=0;v<SLOTS;v++) if(linked[s][v]) link(s, v, false);
+		present[s] = false;
+		nervousness.stationRemoved(s);
+	}
+
+	void link(int u, int v, boolean on) {
+		linked[u][v] = linked[v][u] = on;
+		if(on) nervousness.linkAdded(u, v);
+		else nervousness.linkRemoved(u, v);
+	}
+
+	Set<Long> vertices() {
+		Set<Long> vertices = new HashSet<>();
+		for(int s=0;s<SLOTS;s++) if(present[s]) vertices.add((long)state.uid[s]);
+		return vertices;
+	}
+
+	Set<Long> edges() {
+		Set<Long> edges = new HashSet<>();
+		for(int u=0;u<SLOTS;u++) {
+			for(int v=u+1;v<SLOTS;v++) if(linked[u][v]) edges.add(LongHashSet.pair(state.uid[u], state.uid[v]));
+		}
+		return edges;
+	}
+
+	@Test
+	void sameAsTheWholeSets() {
+		SplittableRandom alea = new SplittableRandom(5);
+		for(int s=0;s<SLOTS/2;s++) addStation(s);
+		nervousness.iteration();
+		Set<Long> vertices = vertices();
+		Set<Long> edges = edges();
+		for(int t=0;t<300;t++) {
+			int changes = alea.nextInt(1, 30);
+			for(int c=0;c<changes;c++) {
+				int u = alea.nextInt(SLOTS);
+				int v = alea.nextInt(SLOTS);
+				if(alea.nextInt(4) == 0) {
+					if(present[u]) removeStation(u);
+					else addStation(u);
+				}
+				else if(u != v && present[u] && present[v]) link(u, v, !linked[u][v]);
+			}
+			nervousness.iteration();
+			Set<Long> verticesNow = vertices();
+			Set<Long> edgesNow = edges();
+			assertEquals(nervousness(vertices, verticesNow), nervousness.vertexNervousness, 1e-12, "iteration "+t);
+			assertEquals(nervousness(edges, edgesNow), nervousness.edgeNervousness, 1e-12, "iteration "+t);
+			vertices = verticesNow;
+			edges = edgesNow;
+		}
+	}
+
+	@Test
+	void aTransientLinkIsNotAChange() {
+		addStation(0);
+		addStation(1);
+		addStation(2);
+		link(0, 1, true);
+		nervousness.iteration();
+		link(1, 2, true);
+		link(1, 2, false);
+		link(0, 1, false);
+		link(0, 1, true);
+		nervousness.iteration();
+		assertEquals(0, nervousness.vertexNervousness);
+		assertEquals(0, nervousness.edgeNervousness);
+	}
+
+	/**
+	 * |X(t) sym.diff. X(t-1)| / |X(t) union X(t-1)|
+	 */
+	static double nervousness(Set<Long> before, Set<Long> now) {
+		Set<Long> union = new HashSet<>(before);
+		union.addAll(now);
+		Set<Long> intersection = new HashSet<>(before);
+		intersection.retainAll(now);
+		return (double)(union.size()-intersection.size())/(double)union.size();
+	}
+}
@@ -0,0 +1,94 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/* -----------------------------------------------------------------
+ * The schedule of the pacer on a simulated clock: the steps end on
+ * their deadlines, the late ones are caught up against the clock in
+ * both real-time modes, and the achieved rate is the target one.
+ * -----------------------------------------------------------------
+ */
+class PacerTest {
+
+	static final long MS = 1000000;
+
+	/**
+	 * the steps last work ns, the waits only move the clock
+	 */
+	static class SimulatedPacer extends Pacer {
+
+		long time = 0;
+
+		SimulatedPacer(int mode, double rate) {
+			super(mode, rate);
+		}
+
+		@Override
+		long now() {
+			return time;
+		}
+
+		@Override
+		void sleep(long ns) {
+			time += ns;
+		}
+
+		void step(long work) {
+			time += work;
+			tick();
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {Pacer.FIXED_RATE, Pacer.DILATION})
+	void theLateStepsAreCaughtUp(int mode) {
+		SimulatedPacer pacer = new SimulatedPacer(mode, 100); // 10 ms
+		for(int i=0;i<10;i++) pacer.step(2*MS);
+		assertEquals(100*MS, pacer.time);
+		pacer.step(45*MS); // ends at 145 ms instead of 110 ms
+		assertEquals(145*MS, pacer.time);
+		for(int i=0;i<4;i++) pacer.step(2*MS); // no wait until 150 ms
+		assertEquals(153*MS, pacer.time);
+		pacer.step(2*MS); // back on schedule
+		assertEquals(160*MS, pacer.time);
+		for(int i=0;i<16;i++) pacer.step(2*MS);
+		assertEquals(320*MS, pacer.time);
+		assertEquals(100, pacer.achievedRate(), 1e-9);
+		assertEquals(5, pacer.late);
+		assertEquals(0, pacer.dropped);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {Pacer.FIXED_RATE, Pacer.DILATION})
+	void aLongStallIsGivenUp(int mode) {
+		SimulatedPacer pacer = new SimulatedPacer(mode, 100);
+		pacer.step(2*MS);
+		pacer.step(500*MS); // 49 periods late
+		assertEquals(49, pacer.dropped);
+		pacer.step(2*MS); // the schedule goes on from the stall
+		assertEquals(520*MS, pacer.time);
+	}
+
+	@Test
+	void theStopsAreNotCounted() {
+		SimulatedPacer pacer = new SimulatedPacer(Pacer.FIXED_RATE, 50); // 20 ms
+		for(int i=0;i<5;i++) pacer.step(MS);
+		pacer.time += 3000*MS; // waiting for a key
+		pacer.resume();
+		for(int i=0;i<5;i++) pacer.step(MS);
+		assertEquals(50, pacer.achievedRate(), 1e-9);
+		assertEquals(0, pacer.late);
+	}
+
+	@Test
+	void asFastAsPossible() {
+		SimulatedPacer pacer = new SimulatedPacer(Pacer.AS_FAST_AS_POSSIBLE, 0);
+		for(int i=0;i<4;i++) pacer.step(5*MS);
+		assertEquals(20*MS, pacer.time);
+		assertEquals(200, pacer.achievedRate(), 1e-9);
+	}
+}
@@ -0,0 +1,91 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * The parallel steps on the columns of the grid: the links are those
+ * of all the pairs closer than d, the runs do not depend on the
+ * number of threads, the positions are double-buffered and the pool
+ * is stopped with the simulation.
+ * -----------------------------------------------------------------
+ */
+class ParallelStepTest {
+
+	static Broadcasting simulation(int scenario, String mobilityModel, int threads) {
+		return new Broadcasting(Tools.parameters(new String[] {
+				"nbNodes=300", "envSize=700", "d=80", "seed=17", "maxIterations=100000",
+				"Scenario="+scenario, "mobilityModel="+mobilityModel,
+				"threads="+threads, "printStatistics=false"}), false);
+	}
+
+	@ParameterizedTest
+	@CsvSource({"1,RWP", "1,MANHATTAN", "2,RWP", "2,MARKOVIAN"})
+	void sameLinksAsAllThePairs(int scenario, String mobilityModel) {
+		try(Broadcasting sim = simulation(scenario, mobilityModel, 3)) {
+			StationState state = sim.state;
+			for(int t=0;t<120;t++) {
+				sim.step();
+				int n = 0;
+				for(int u=state.first(); u>=0; u=state.next(u)) {
+					for(int v=state.next(u); v>=0; v=state.next(v)) {
+						double dist = sim.distance(u, v);
+						if(dist < sim.d) assertTrue(sim.linked(u, v), "step "+t+" "+u+"-"+v);
+						else if(dist > sim.d) assertTrue(!sim.linked(u, v), "step "+t+" "+u+"-"+v);
+						if(sim.linked(u, v)) n++;
+					}
+				}
+				assertEquals(n, sim.g.getEdgeCount(), "step "+t);
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@CsvSource({"1,RWP", "2,MARKOVIAN"})
+	void sameRunOnTwoAndFourThreads(int scenario, String mobilityModel) {
+		try(Broadcasting two = simulation(scenario, mobilityModel, 2);
+				Broadcasting four = simulation(scenario, mobilityModel, 4)) {
+			for(int t=0;t<150;t++) {
+				two.step();
+				four.step();
+				assertArrayEquals(two.state.x, four.state.x, "step "+t);
+				assertArrayEquals(two.state.y, four.state.y, "step "+t);
+				assertArrayEquals(two.state.ydest, four.state.ydest, "step "+t);
+				assertEquals(two.links.size(), four.links.size(), "step "+t);
+				for(int e=0;e<two.g.getEdgeCount();e++) {
+					assertEquals(two.g.getEdge(e).getId(), four.g.getEdge(e).getId(), "step "+t);
+				}
+			}
+		}
+	}
+
+	@Test
+	void thePositionsAreDoubleBuffered() {
+		try(Broadcasting sim = simulation(1, "RWP", 2)) {
+			double[] x = sim.state.x;
+			double[] y = sim.state.y;
+			sim.parallel.moveStations();
+			assertNotSame(x, sim.state.x);
+			assertSame(x, sim.parallel.xNext);
+			assertSame(y, sim.parallel.yNext);
+			sim.parallel.moveStations();
+			assertSame(x, sim.state.x);
+		}
+	}
+
+	@Test
+	void thePoolStopsWithTheSimulation() {
+		Broadcasting sim = simulation(1, "RWP", 2);
+		assertEquals(sim.grid.nbCells, sim.parallel.nbPartitions);
+		sim.step();
+		sim.close();
+		assertTrue(sim.parallel.pool.isShutdown());
+	}
+}
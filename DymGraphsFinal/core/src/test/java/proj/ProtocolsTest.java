@@ -0,0 +1,60 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * The results of each protocol run together with the others over one
+ * simulation are those of a simulation of its own with the same seed,
+ * and the simulation itself, without a broadcast of its own, gives 0
+ * reached stations and 0 receptions.
+ * -----------------------------------------------------------------
+ */
+class ProtocolsTest {
+
+	@ParameterizedTest
+	@CsvSource({"1,RWP,41", "1,MANHATTAN,5", "2,RWP,9", "2,MARKOVIAN,42"})
+	void sameResultsAsTheSimulations(int scenario, String mobilityModel, long seed) {
+		String[] parameters = {"nbNodes=200", "seed="+seed, "maxIterations=200",
+				"Scenario="+scenario, "mobilityModel="+mobilityModel, "printStatistics=false"};
+		String[] protocols = ReplayTest.STRATEGIES;
+		String[] all = new String[parameters.length+1];
+		System.arraycopy(parameters, 0, all, 0, parameters.length);
+		all[parameters.length] = "protocols="+String.join(",", protocols);
+		Broadcasting together = new Broadcasting(Tools.parameters(all));
+		assertEquals(0, together.reachedStations);
+		assertEquals(0, together.meanReceptions);
+		for(int i=0;i<protocols.length;i++) {
+			Broadcasting sim = new Broadcasting(Tools.parameters(ReplayTest.strategy(parameters, protocols[i])));
+			assertEquals(sim.iterations, together.protocols[i].iterations, protocols[i]);
+			assertEquals(sim.reachedStations, together.protocols[i].reachedStations, protocols[i]);
+			assertEquals(sim.meanReceptions, together.protocols[i].meanReceptions, protocols[i]);
+		}
+	}
+
+	@Test
+	void oneLinePerProtocolWithoutNaN() {
+		PrintStream out = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		try {
+			System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+			new Broadcasting(Tools.parameters(new String[] {"nbNodes=150", "seed=3", "maxIterations=100",
+					"protocols=SIMPLE_FLOODING,SIMPLE_FLOODING:TTL=2"}));
+		} finally {
+			System.setOut(out);
+		}
+		String[] lines = printed.toString(StandardCharsets.UTF_8).split("\\R");
+		assertEquals(2, lines.length);
+		assertEquals("SIMPLE_FLOODING: Performance", lines[0].substring(0, 28));
+		assertEquals("SIMPLE_FLOODING:TTL=2: Performance", lines[1].substring(0, 34));
+		for(String line: lines) assertFalse(line.contains("NaN"), line);
+	}
+}
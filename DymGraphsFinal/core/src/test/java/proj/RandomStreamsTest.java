@@ -0,0 +1,80 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.SplittableRandom;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * The streams of a seed are the same at each run, each worker keeps
+ * its stream whatever the number of workers, and the parallel step
+ * gives the same run whatever the number of threads.
+ * -----------------------------------------------------------------
+ */
+class RandomStreamsTest {
+
+	@Test
+	void sameSeedSameStreams() {
+		RandomStreams a = new RandomStreams(3);
+		RandomStreams b = new RandomStreams(3);
+		assertEquals(a.mobility.nextLong(), b.mobility.nextLong());
+		assertEquals(a.churn.nextLong(), b.churn.nextLong());
+		assertNotEquals(new RandomStreams(3).mobility.nextLong(), new RandomStreams(3).churn.nextLong());
+		// the other streams do not move when one of them is drawn from
+		for(int i=0;i<100;i++) a.generator.nextDouble();
+		assertEquals(a.broadcast.nextLong(), b.broadcast.nextLong());
+	}
+
+	@Test
+	void aWorkerKeepsItsStream() {
+		RandomStreams random = new RandomStreams(17);
+		SplittableRandom[] four = random.workers(4);
+		SplittableRandom[] ten = random.workers(10);
+		for(int i=0;i<4;i++) assertEquals(four[i].nextLong(), ten[i].nextLong());
+		assertNotEquals(ten[4].nextLong(), ten[5].nextLong());
+	}
+
+	@Test
+	void generatorsFromAnExplicitStream() {
+		SingleGraph a = Generator.randomEuclideanGraph(60, 150, 600, new SplittableRandom(8));
+		SingleGraph b = Generator.randomEuclideanGraph(60, 150, 600, new SplittableRandom(8));
+		assertEquals(a.getEdgeCount(), b.getEdgeCount());
+		for(int i=0;i<60;i++) {
+			assertEquals((double)a.getNode(i).getAttribute("x"), (double)b.getNode(i).getAttribute("x"));
+			assertEquals((double)a.getNode(i).getAttribute("y"), (double)b.getNode(i).getAttribute("y"));
+		}
+	}
+
+	@ParameterizedTest
+	@CsvSource({"1,RWP,GRID", "1,MANHATTAN,KINETIC", "2,RWP,GRID", "2,MARKOVIAN,GRID"})
+	void sameRunWhateverTheThreads(int scenario, String mobilityModel, String topologyUpdate) {
+		Broadcasting[] sims = new Broadcasting[3];
+		int[] threads = {2, 3, 8};
+		for(int k=0;k<sims.length;k++) {
+			sims[k] = new Broadcasting(Tools.parameters(new String[] {
+					"nbNodes=300", "envSize=800", "d=90", "seed=5", "maxIterations=100000",
+					"Scenario="+scenario, "mobilityModel="+mobilityModel, "topologyUpdate="+topologyUpdate,
+					"threads="+threads[k], "printStatistics=false"}), false);
+		}
+		try {
+			for(int t=0;t<200;t++) {
+				for(Broadcasting sim: sims) sim.step();
+				for(int k=1;k<sims.length;k++) {
+					assertArrayEquals(sims[0].state.x, sims[k].state.x, "step "+t);
+					assertArrayEquals(sims[0].state.y, sims[k].state.y, "step "+t);
+					assertArrayEquals(sims[0].state.xdest, sims[k].state.xdest, "step "+t);
+					assertEquals(sims[0].g.getEdgeCount(), sims[k].g.getEdgeCount(), "step "+t);
+					assertEquals(sims[0].flooding.hasTheMessage, sims[k].flooding.hasTheMessage, "step "+t);
+				}
+			}
+		} finally {
+			for(Broadcasting sim: sims) sim.close();
+		}
+	}
+}
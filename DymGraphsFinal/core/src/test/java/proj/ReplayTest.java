@@ -0,0 +1,58 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * The results of each strategy replayed over a trace are those of a
+ * simulation of its own with the same seed, in both scenarios (the
+ * stations of Scenario 2 come and go during the trace).
+ * -----------------------------------------------------------------
+ */
+class ReplayTest {
+
+	final static String[] STRATEGIES = {"SIMPLE_FLOODING", "SIMPLE_FLOODING_WITH_DELAY:maxRAD=5",
+			"SIMPLE_FLOODING:TTL=1", "SIMPLE_FLOODING_WITH_DELAY:TTL=8"};
+
+	@TempDir
+	Path directory;
+
+	@ParameterizedTest
+	@CsvSource({"1,RWP,41", "1,MARKOVIAN,5", "2,RWP,3", "2,MANHATTAN,9", "2,MARKOVIAN,42"})
+	void sameResultsAsTheSimulations(int scenario, String mobilityModel, long seed) {
+		String[] parameters = {"nbNodes=200", "seed="+seed, "maxIterations=200",
+				"Scenario="+scenario, "mobilityModel="+mobilityModel, "printStatistics=false"};
+		String[] args = {"strategies="+String.join(",", STRATEGIES), "threads=2",
+				"trace="+directory.resolve("run.trace")};
+		String[] all = new String[parameters.length+args.length];
+		System.arraycopy(parameters, 0, all, 0, parameters.length);
+		System.arraycopy(args, 0, all, parameters.length, args.length);
+		Replay replay = new Replay(Tools.parameters(all));
+		replay.record();
+		replay.run();
+		for(int i=0;i<STRATEGIES.length;i++) {
+			Broadcasting sim = new Broadcasting(Tools.parameters(strategy(parameters, STRATEGIES[i])));
+			assertEquals(sim.iterations, replay.results[i].iterations, STRATEGIES[i]);
+			assertEquals(sim.reachedStations, replay.results[i].reachedStations, STRATEGIES[i]);
+			assertEquals(sim.meanReceptions, replay.results[i].meanReceptions, STRATEGIES[i]);
+		}
+	}
+
+	/**
+	 * @return the parameters of a simulation of the broadcast alone
+	 * (see Flooding.parameters)
+	 */
+	static String[] strategy(String[] parameters, String broadcast) {
+		String[] fields = broadcast.split(":");
+		String[] all = new String[parameters.length+fields.length];
+		System.arraycopy(parameters, 0, all, 0, parameters.length);
+		all[parameters.length] = "broadcastingStrategy="+fields[0];
+		System.arraycopy(fields, 1, all, parameters.length+1, fields.length-1);
+		return all;
+	}
+}
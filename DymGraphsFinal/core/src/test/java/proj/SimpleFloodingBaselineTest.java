@@ -0,0 +1,128 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * The flooding of a simulation, run by Flooding over the frontier,
+ * against the simple flooding of the original Broadcasting, rewritten
+ * here over the same graph with its attributes kept by uid: at each
+ * round every sender of the list transmits, then all the stations
+ * are scanned for those marked readyToSend, and in Scenario 1 the
+ * lifetimes are decremented after the moves.
+ * -----------------------------------------------------------------
+ */
+class SimpleFloodingBaselineTest {
+
+	static class Baseline {
+
+		Broadcasting sim;
+		Map<Integer,Integer> lifetime = new HashMap<>();
+		Map<Integer,Integer> nbOfReceptions = new HashMap<>();
+		Set<Integer> hasTheMessage = new HashSet<>();
+		Set<Integer> notTransmittedYet = new HashSet<>();
+		Set<Integer> readyToSendAttribute = new HashSet<>();
+		List<Integer> readyToSend = new ArrayList<>();
+
+		Baseline(Broadcasting sim) {
+			this.sim = sim;
+			int source = sim.state.uid[sim.flooding.source];
+			hasTheMessage.add(source);
+			nbOfReceptions.put(source, 0);
+			notTransmittedYet.add(source);
+			if(sim.Scenario == 1) lifetime.put(source, sim.TTL);
+			readyToSend.add(source);
+		}
+
+		/**
+		 * the broadcast of one iteration of moveAndBroadcast
+		 * @return true if the flooding is finished
+		 */
+		boolean round() {
+			Map<Integer,Node> nodes = new HashMap<>();
+			for(int s=sim.state.first(); s>=0; s=sim.state.next(s)) nodes.put(sim.state.uid[s], sim.state.node[s]);
+			for(int u: readyToSend) simpleFlooding(u, nodes.get(u));
+			readyToSend.clear();
+			for(int s=sim.state.first(); s>=0; s=sim.state.next(s)) {
+				int u = sim.state.uid[s];
+				if(readyToSendAttribute.remove(u)) readyToSend.add(u);
+			}
+			return readyToSend.isEmpty();
+		}
+
+		void simpleFlooding(int u, Node nu) {
+			if(!notTransmittedYet.remove(u) || nu == null) return; // or it has left the graph
+			for(Edge e: nu.getEachEdge()) {
+				if(!sim.isActive(e)) continue; // Edge-Markovian link off
+				int v = sim.state.uid[sim.state.slotOf(e.getOpposite(nu))];
+				boolean canReceive = sim.Scenario != 1 || lifetime.getOrDefault(v, 0) <= 0;
+				if(canReceive && !hasTheMessage.contains(v)) {
+					hasTheMessage.add(v);
+					nbOfReceptions.put(v, 1);
+					readyToSendAttribute.add(v);
+					notTransmittedYet.add(v);
+					if(sim.Scenario == 1) lifetime.put(v, sim.TTL);
+				}
+				else nbOfReceptions.merge(v, 1, Integer::sum);
+			}
+		}
+
+		/**
+		 * Scenario 1, after the moves
+		 */
+		void expire() {
+			for(int s=sim.state.first(); s>=0; s=sim.state.next(s)) {
+				int u = sim.state.uid[s];
+				int l = lifetime.getOrDefault(u, 0);
+				if(l <= 0) continue;
+				lifetime.put(u, l-1);
+				if(l-1 > 0) continue;
+				hasTheMessage.remove(u);
+				nbOfReceptions.remove(u);
+				readyToSendAttribute.remove(u);
+				notTransmittedYet.remove(u);
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@CsvSource({"1,RWP,3", "1,RWP,2", "1,MANHATTAN,6", "1,MARKOVIAN,4", "2,RWP,3", "2,MARKOVIAN,3"})
+	void sameStationsAndReceptionsAsTheOriginal(int scenario, String mobilityModel, int TTL) {
+		Broadcasting sim = new Broadcasting(Tools.parameters(new String[] {
+				"nbNodes=250", "envSize=600", "d=100", "seed=21", "maxIterations=100000",
+				"Scenario="+scenario, "mobilityModel="+mobilityModel, "TTL="+TTL,
+				"printStatistics=false"}), false);
+		Baseline baseline = new Baseline(sim);
+		int maxReached = 0;
+		for(int t=1;t<=150;t++) {
+			boolean expected = baseline.round();
+			boolean finished = sim.step();
+			if(scenario == 1) baseline.expire();
+			// the stations of the graph, those that left keep their attributes in the original
+			Map<Integer,Integer> expectedReceptions = new HashMap<>();
+			Map<Integer,Integer> receptions = new HashMap<>();
+			for(int s=sim.state.first(); s>=0; s=sim.state.next(s)) {
+				int u = sim.state.uid[s];
+				if(baseline.hasTheMessage.contains(u)) expectedReceptions.put(u, baseline.nbOfReceptions.get(u));
+				if(sim.flooding.hasTheMessage.get(s)) receptions.put(u, sim.flooding.nbOfReceptions[s]);
+			}
+			assertEquals(expectedReceptions, receptions, "step "+t);
+			assertEquals(expected, finished, "step "+t);
+			maxReached = Math.max(maxReached, receptions.size());
+			if(finished) break;
+		}
+		assertTrue(maxReached > 10, "the message spreads");
+	}
+}
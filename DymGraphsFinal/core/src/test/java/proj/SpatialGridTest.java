@@ -0,0 +1,67 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class SpatialGridTest {
+
+	@Test
+	void positionsOutsideTheEnvironmentGoToTheBorderCells() {
+		SpatialGrid grid = new SpatialGrid(70, 1000, 4);
+		assertEquals(15, grid.nbCells);
+		assertEquals(0, grid.column(-3));
+		assertEquals(14, grid.column(1000));
+		assertEquals(14, grid.column(5000));
+		assertEquals(-1, grid.cell(-1, 0));
+		assertEquals(-1, grid.cell(0, 15));
+	}
+
+	/**
+	 * after random moves, insertions and removals, each node is in
+	 * the cell of its position, once, and the cells hold only them
+	 */
+	@Test
+	void eachNodeIsInTheCellOfItsPosition() {
+		SpatialGrid grid = new SpatialGrid(70, 1000, 4); // grows
+		SplittableRandom alea = new SplittableRandom(1);
+		int n = 300;
+		double[] x = new double[n];
+		double[] y = new double[n];
+		boolean[] in = new boolean[n];
+		for(int round=0;round<50;round++) {
+			for(int id=0;id<n;id++) {
+				if(alea.nextInt(10) == 0) {
+					grid.remove(id);
+					in[id] = false;
+					continue;
+				}
+				x[id] = alea.nextDouble(-10, 1010);
+				y[id] = alea.nextDouble(-10, 1010);
+				grid.update(id, x[id], y[id]);
+				in[id] = true;
+			}
+			int[] seen = new int[n];
+			int total = 0;
+			for(int cell=0;cell<grid.nbCells*grid.nbCells;cell++) {
+				for(int k=0;k<grid.count(cell);k++) {
+					int id = grid.get(cell, k);
+					seen[id]++;
+					total++;
+					assertEquals(grid.cell(grid.column(x[id]), grid.column(y[id])), cell);
+				}
+			}
+			for(int id=0;id<n;id++) {
+				assertEquals(in[id] ? 1 : 0, seen[id], "node "+id);
+				if(in[id]) {
+					assertEquals(grid.column(x[id]), grid.cellX(id));
+					assertEquals(grid.column(y[id]), grid.cellY(id));
+				}
+			}
+			assertTrue(total <= n);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.SplittableRandom;
+
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Test;
+
+class StationStateTest {
+
+	static Node node(SingleGraph g, String id) {
+		Node u = g.addNode(id);
+		u.setAttribute("x", 1.0);
+		u.setAttribute("y", 2.0);
+		return u;
+	}
+
+	@Test
+	void releasedSlotsAreReusedWithNewUids() {
+		SingleGraph g = new SingleGraph("stations");
+		StationState state = new StationState(2); // grows
+		int a = state.add(node(g, "a"));
+		int b = state.add(node(g, "b"));
+		int c = state.add(node(g, "c"));
+		assertEquals(3, state.size);
+		long idOfB = state.id(b);
+		assertEquals(b, state.slotOfId(idOfB));
+		state.remove(b, g);
+		assertEquals(-1, state.slotOfId(idOfB));
+		assertNull(g.getNode("b"));
+		int d = state.add(node(g, "d"));
+		assertEquals(b, d);
+		assertEquals(3, state.uid[d]);
+		assertEquals(-1, state.slotOfId(idOfB));
+		assertEquals(d, state.slotOfId(state.id(d)));
+		assertEquals(1.0, state.x[a]);
+		assertEquals(2.0, state.y[c]);
+	}
+
+	/**
+	 * the graph moves its last node into the index of a removed one:
+	 * slotOf follows, also when the last node is not a station
+	 */
+	@Test
+	void slotOfFollowsTheNodesMovedByTheGraph() {
+		SingleGraph g = new SingleGraph("stations");
+		StationState state = new StationState(10);
+		SplittableRandom alea = new SplittableRandom(2);
+		int next = 0;
+		for(;next<50;next++) state.add(node(g, "u_"+next));
+		g.addNode("corner");
+		for(int round=0;round<200;round++) {
+			if(state.size > 0 && alea.nextBoolean()) state.remove(state.randomSlot(alea), g);
+			else state.add(node(g, "u_"+(next++)));
+			for(int s=state.first(); s>=0; s=state.next(s)) {
+				assertEquals(s, state.slotOf(state.node[s]));
+				assertSame(state.node[s], g.getNode(state.node[s].getIndex()));
+			}
+			assertEquals(-1, state.slotOf(g.getNode("corner")));
+			assertEquals(state.size+1, g.getNodeCount());
+		}
+		for(Node u: g.getNodeSet()) assertNull(u.getAttribute("slot"));
+	}
+}
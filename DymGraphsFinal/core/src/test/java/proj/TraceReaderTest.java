@@ -0,0 +1,113 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graphstream.graph.Edge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/* -----------------------------------------------------------------
+ * A trace read step by step gives the stations (positions rounded to
+ * the resolution) and the active links of the simulation at the end
+ * of each step, and a seek, forward or backward, across keyframes,
+ * gives the graph of the sequential read.
+ * -----------------------------------------------------------------
+ */
+class TraceReaderTest {
+
+	final static int STEPS = 2*TraceWriter.KEYFRAME+50;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void seekGivesTheGraphOfASequentialRead() throws IOException {
+		String file = directory.resolve("run.trace").toString();
+		Broadcasting sim = new Broadcasting(Tools.parameters(new String[] {"nbNodes=100", "seed=31", "Scenario=2",
+				"mobilityModel=MARKOVIAN", "broadcastingStrategy=NO_BROADCASTING", "printStatistics=false",
+				"trace="+file}), false);
+		List<String> graphs = new ArrayList<>();
+		graphs.add(graph(sim));
+		for(int t=0;t<STEPS;t++) {
+			sim.step();
+			graphs.add(graph(sim));
+		}
+		sim.close();
+		TraceReader reader = new TraceReader(file);
+		try {
+			assertEquals(STEPS, reader.getLastStep());
+			assertEquals(graphs.get(0), graph(reader));
+			for(int t=1;t<=STEPS;t++) {
+				assertTrue(reader.next());
+				assertEquals(graphs.get(t), graph(reader), "step "+t);
+			}
+			assertFalse(reader.next());
+			for(int step: new int[] {300, 10, 256, 255, 512, 0, 257, STEPS, 511, 100}) {
+				reader.seek(step);
+				assertEquals(step, reader.getStep());
+				assertEquals(graphs.get(step), graph(reader), "seek "+step);
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * @return the stations by uid with their position in RESOLUTION
+	 * units, and the active links by uids
+	 */
+	static String graph(Broadcasting sim) {
+		StationState state = sim.state;
+		long[] stations = new long[state.size];
+		int n = 0;
+		for(int s=state.first(); s>=0; s=state.next(s)) stations[n++] = ((long)state.uid[s] << 32) | s;
+		Arrays.sort(stations);
+		StringBuilder b = new StringBuilder();
+		for(long station: stations) {
+			int s = (int)station;
+			b.append(state.uid[s]).append(' ').append(Math.round(state.x[s]/TraceWriter.RESOLUTION))
+					.append(' ').append(Math.round(state.y[s]/TraceWriter.RESOLUTION)).append('\n');
+		}
+		long[] links = new long[sim.g.getEdgeCount()];
+		n = 0;
+		for(Edge e: sim.g.getEdgeSet()) {
+			if(!sim.isActive(e)) continue;
+			int u = state.slotOf(e.getNode0());
+			int v = state.slotOf(e.getNode1());
+			links[n++] = LongHashSet.pair(state.uid[u], state.uid[v]);
+		}
+		links = Arrays.copyOf(links, n);
+		Arrays.sort(links);
+		for(long link: links) b.append(link >>> 32).append('-').append(link & 0xffffffffL).append('\n');
+		return b.toString();
+	}
+
+	static String graph(TraceReader reader) {
+		long[] stations = new long[reader.size];
+		int n = 0;
+		for(int s=reader.first(); s>=0; s=reader.next(s)) stations[n++] = ((long)reader.uid[s] << 32) | s;
+		Arrays.sort(stations);
+		StringBuilder b = new StringBuilder();
+		for(long station: stations) {
+			int s = (int)station;
+			b.append(reader.uid[s]).append(' ').append(reader.qx[s]).append(' ').append(reader.qy[s]).append('\n');
+		}
+		long[] links = new long[reader.links.size()];
+		n = 0;
+		for(int i=0;i<reader.links.capacity();i++) {
+			long link = reader.links.keyAt(i);
+			if(link != LongHashSet.EMPTY) links[n++] = link;
+		}
+		Arrays.sort(links);
+		for(long link: links) b.append(link >>> 32).append('-').append(link & 0xffffffffL).append('\n');
+		return b.toString();
+	}
+}
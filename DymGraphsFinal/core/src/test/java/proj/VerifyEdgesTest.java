@@ -0,0 +1,40 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * The links kept by verifyEdges with the spatial grid are those of
+ * the check of all the pairs: linked closer than d, not linked
+ * further than d.
+ * -----------------------------------------------------------------
+ */
+class VerifyEdgesTest {
+
+	@ParameterizedTest
+	@CsvSource({"1,RWP,70", "1,MANHATTAN,70", "1,MARKOVIAN,150", "2,RWP,70", "2,MANHATTAN,40", "2,MARKOVIAN,70"})
+	void sameLinksAsAllThePairs(int scenario, String mobilityModel, int d) {
+		Broadcasting sim = new Broadcasting(Tools.parameters(new String[] {"nbNodes=200", "seed=7", "d="+d,
+				"topologyUpdate=GRID", "broadcastingStrategy=NO_BROADCASTING", "printStatistics=false",
+				"Scenario="+scenario, "mobilityModel="+mobilityModel}), false);
+		StationState state = sim.state;
+		for(int t=0;t<60;t++) {
+			sim.step();
+			int nbLinks = 0;
+			for(int u=state.first(); u>=0; u=state.next(u)) {
+				for(int v=state.next(u); v>=0; v=state.next(v)) {
+					double distance = sim.distance(u,v);
+					boolean linked = sim.linked(u,v);
+					if(distance < sim.d) assertTrue(linked, "stations "+u+" and "+v+" at step "+sim.nbIterations);
+					if(distance > sim.d) assertFalse(linked, "stations "+u+" and "+v+" at step "+sim.nbIterations);
+					if(linked) nbLinks++;
+				}
+			}
+			assertEquals(nbLinks, sim.g.getEdgeCount());
+		}
+	}
+}
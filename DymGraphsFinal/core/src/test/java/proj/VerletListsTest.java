@@ -0,0 +1,52 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graphstream.graph.Edge;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/* -----------------------------------------------------------------
+ * The Verlet lists keep the links of the spatial grid at each step,
+ * with the same Edge-Markovian states, also for the stations added
+ * by the churn, whose links are created from their lists.
+ * -----------------------------------------------------------------
+ */
+class VerletListsTest {
+
+	static Broadcasting simulation(String topologyUpdate, int scenario, String mobilityModel, int skin) {
+		return new Broadcasting(Tools.parameters(new String[] {"nbNodes=300", "envSize=700", "d=70",
+				"seed=12", "maxIterations=100000", "skin="+skin, "Scenario="+scenario,
+				"mobilityModel="+mobilityModel, "topologyUpdate="+topologyUpdate, "printStatistics=false"}), false);
+	}
+
+	/**
+	 * state of each link, by pair of station uids
+	 */
+	static Map<Long,Boolean> links(Broadcasting sim) {
+		Map<Long,Boolean> links = new HashMap<>();
+		for(Edge e: sim.g.getEdgeSet()) {
+			int u = sim.state.uid[sim.state.slotOf(e.getNode0())];
+			int v = sim.state.uid[sim.state.slotOf(e.getNode1())];
+			links.put(LongHashSet.pair(u, v), sim.isActive(e));
+		}
+		return links;
+	}
+
+	@ParameterizedTest
+	@CsvSource({"1,RWP,30", "1,MANHATTAN,10", "1,MARKOVIAN,30", "2,RWP,30", "2,MARKOVIAN,30", "2,MARKOVIAN,5"})
+	void sameLinksAsTheGrid(int scenario, String mobilityModel, int skin) {
+		Broadcasting verlet = simulation("VERLET", scenario, mobilityModel, skin);
+		Broadcasting grid = simulation("GRID", scenario, mobilityModel, skin);
+		assertNotNull(verlet.verlet);
+		for(int t=0;t<150;t++) {
+			assertEquals(grid.step(), verlet.step(), "step "+verlet.nbIterations);
+			assertEquals(links(grid), links(verlet), "step "+verlet.nbIterations);
+			assertEquals(grid.flooding.hasTheMessage, verlet.flooding.hasTheMessage, "step "+verlet.nbIterations);
+		}
+	}
+}
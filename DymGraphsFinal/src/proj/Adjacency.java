@@ -0,0 +1,102 @@
+package proj;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/* -----------------------------------------------------------------
+ * Stations and neighbors of each station, maintained from the
+ * topology changes (the active links only, see TopologyListener),
+ * so that a broadcast can run without the graph: over the replay of
+ * a trace (see TraceReader), or next to the simulation.
+ * Neighbors are kept in an array per station, a removed neighbor is
+ * replaced by the last one.
+ * Stations are identified by their slot.
+ * -----------------------------------------------------------------
+ */
+public class Adjacency implements TopologyListener {
+
+	BitSet used = new BitSet(); // slots of the stations
+	int size = 0; // number of stations
+	int[][] neighbors;
+	int[] degree;
+
+	public Adjacency(int capacity) {
+		capacity = Math.max(1, capacity);
+		neighbors = new int[capacity][];
+		degree = new int[capacity];
+	}
+
+	private void ensureCapacity(int s) {
+		if(s < degree.length) return;
+		int capacity = Math.max(2*degree.length, s+1);
+		neighbors = Arrays.copyOf(neighbors, capacity);
+		degree = Arrays.copyOf(degree, capacity);
+	}
+
+	public void stationAdded(int s) {
+		ensureCapacity(s);
+		used.set(s);
+		size++;
+		if(neighbors[s] == null) neighbors[s] = new int[4];
+		degree[s] = 0;
+	}
+
+	/**
+	 * its links have already been removed
+	 */
+	public void stationRemoved(int s) {
+		used.clear(s);
+		size--;
+		degree[s] = 0;
+	}
+
+	public void linkAdded(int u, int v) {
+		addNeighbor(u,v);
+		addNeighbor(v,u);
+	}
+
+	public void linkRemoved(int u, int v) {
+		removeNeighbor(u,v);
+		removeNeighbor(v,u);
+	}
+
+	private void addNeighbor(int u, int v) {
+		if(degree[u] == neighbors[u].length) neighbors[u] = Arrays.copyOf(neighbors[u], 2*degree[u]);
+		neighbors[u][degree[u]++] = v;
+	}
+
+	private void removeNeighbor(int u, int v) {
+		for(int i=0;i<degree[u];i++) {
+			if(neighbors[u][i] == v) {
+				neighbors[u][i] = neighbors[u][--degree[u]];
+				return;
+			}
+		}
+	}
+
+	/**
+	 * first slot of a station, for(int s=first(); s>=0; s=next(s))
+	 */
+	public int first() {
+		return used.nextSetBit(0);
+	}
+
+	public int next(int s) {
+		return used.nextSetBit(s+1);
+	}
+
+	public boolean contains(int s) {
+		return used.get(s);
+	}
+
+	public int degree(int s) {
+		return degree[s];
+	}
+
+	/**
+	 * @return the i-th neighbor of s, i < degree(s)
+	 */
+	public int neighbor(int s, int i) {
+		return neighbors[s][i];
+	}
+}
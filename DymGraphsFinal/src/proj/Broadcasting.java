@@ -4,7 +4,8 @@ package proj;
  * In the graph, there are 4 nodes that are not stations but define 
  * the corners of the environment, thus neither the mobility model
  * nor the broadcasting algorithm are applied on them. 
- * All the other nodes are gathered into the stations ArrayList
+ * All the other nodes are the stations, their state is kept in
+ * a StationState indexed by station number
  * -----------------------------------------------------------------
  * Simulations are done such that each node/station executes the 
  * same algorithm, both for moving and for broadcasting. 
@@ -18,18 +19,19 @@ package proj;
 
 import org.graphstream.graph.implementations.SingleGraph;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.SplittableRandom;
 
-import org.graphstream.algorithm.ConnectedComponents;
 import org.graphstream.algorithm.Toolkit;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 
 
-public class Broadcasting {
+public class Broadcasting implements AutoCloseable {
 	
 	public final static int RWP = 1;
 	public final static int MANHATTAN = 2;
@@ -38,6 +40,12 @@ public class Broadcasting {
 	public final static int NO_BROADCASTING = 10;
 	public final static int SIMPLE_FLOODING = 11;
 	public final static int SIMPLE_FLOODING_WITH_DELAY = 12;
+	public final static int MULTI_SOURCE_FLOODING = 13; // simple flooding from many sources at once
+	public final static int MULTI_SOURCE_FLOODING_WITH_DELAY = 14; // idem, with delay
+
+	public final static int GRID = 20; // all the close pairs checked at each step
+	public final static int KINETIC = 21; // only the pairs whose link is predicted to change
+	public final static int VERLET = 22; // only the pairs of the Verlet lists
 
 	public final static String sourceStyle = "fill-color: red;shape:cross;";
 	public final static String senderStyle = "fill-color:blue;";
@@ -49,12 +57,39 @@ public class Broadcasting {
 
 	// execution parameters 
 	int delay = 50;
-	Random alea = new Random(System.currentTimeMillis());
+	int pacing = Pacer.FIXED_RATE; // AS_FAST_AS_POSSIBLE // DILATION // see Pacer
+	double tickRate = 1000.0/delay; // steps per second, FIXED_RATE only
+	double dilation = 1000.0/delay; // simulated seconds per second, DILATION only
+	Pacer pacer; // real-time pacing of the steps
+	long seed = System.nanoTime(); // the whole run is reproduced from its seed
+	RandomStreams random; // one stream for each part of the simulation
 	SingleGraph g;
-	ArrayList<Node> stations;
+	StationState state; // the stations and their state, by station number
+	SpatialGrid grid; // spatial index of the stations, cells of side d
+	LongHashSet links; // pairs of slots of the linked stations (edges of the graph)
+	long nbLinksCreated = 0; // number of edge ids created
+	ArrayList<String> freeIds = new ArrayList<>(); // ids of the removed edges, reused by addLink
+	EdgeMarkovian markov; // on/off state of the links, Edge-Markovian model only
+	KineticTopology kinetic; // link updates, KINETIC only
+	VerletLists verlet; // idem, VERLET only
+	ParallelStep parallel; // moves and GRID link updates, when threads > 1
+	int threads = 1; // number of threads of a time step
+	ArrayList<TopologyListener> listeners = new ArrayList<>();
+	Nervousness nervousness; // only when the iterations are printed
+	Components components; // idem
 	boolean stepByStep = false;
 	boolean labelOnNodes = false;
-	int maxIterations = 10000; // if no broadcasting algo is running
+	boolean display = true; // a viewer is attached to the graph, otherwise headless batch run
+	CoalescingPipe viewerPipe; // events of the graph to the viewer, batched by frame
+	String dgs = null; // file recording the evolution of the graph (compressed if .gz)
+	DgsRecorder recorder; // idem
+	String trace = null; // file of the binary trace of the graph
+	TraceWriter traceWriter; // idem
+	boolean printIterations = true; // statistics printed at each iteration
+	boolean printStatistics = true; // source and final statistics printed
+	int maxIterations = 10000; // upper bound, mainly if no broadcasting algo is running
+	int nbIterations = 0; // current time step
+	long nbOn = 0, nbOff = 0; // sums over the time steps of the links on and off (Edge-Markovian)
 	
 	// mobility and graph parameters
 	int nbNodes = 300;
@@ -64,33 +99,204 @@ public class Broadcasting {
 	int d = 70;
 	int envSize = 1000;
 	int mobilityModel = RWP; //RWP // MANHATTAN; // MARKOVIAN //
+	int topologyUpdate = GRID; // KINETIC // VERLET // GRID instead of KINETIC for Scenario 2 (churn)
+	double skin = 30; // margin of the Verlet lists beyond d
 	int nbParallelStreets = 10;
-	int distanceInterStreets = (int)(envSize/nbParallelStreets);
+	int distanceInterStreets = envSize/nbParallelStreets;
 	//Nowe parametry
 	double p = 0.9; //probabilities of Edge-Markovian model
 	double q = 0.9;
 	int Scenario = 1; //Scenario 1//Scenario 2
 	int TTL = 3; //For Scenario 1 - the lifetime of a message on a vertex
 	double r = 0.2; //For Scenario 2 - the ratio of renewing nodes within the graph
+	int[] candidates = new int[16]; // neighbors of a new station, see addToGraph
+	
+	// results of the run (see statistics)
+	int iterations = 0;
+	int reachedStations = 0;
+	float meanReceptions = 0;
 	
 	// broadcast parameters
 	Node source = null;
-	ArrayList<Node> readyToSend;
 	int broadcastingStrategy = SIMPLE_FLOODING; // NO_BROADCASTING; // 
 	int maxRAD = 10; // stands for max Random Assessment Delay
+	Flooding flooding; // the broadcast of broadcastingStrategy, see initBroadcast
+	String[] protocolNames = null; // broadcasts run together instead of broadcastingStrategy, see Flooding
+	Flooding[] protocols; // idem
+	Adjacency adjacency; // neighbors of the stations, for the floodings
+	int sources = 0; // number of sources of MULTI_SOURCE_FLOODING(_WITH_DELAY), 0 for all the stations
+	MultiSourceFlooding multiSource; // idem
 	
 	
 
-	// ---- constructor
+	// ---- constructors
 	public Broadcasting() {
+		run();
+	}
+	
+	/**
+	 * headless batch execution: no viewer, no key to hit, the 
+	 * simulation runs as fast as possible (unless pacing is set) and 
+	 * only the final statistics are printed (unless printIterations 
+	 * is set).
+	 * @param parameters see setParameters
+	 */
+	public Broadcasting(Properties parameters) {
+		this(parameters, true);
+	}
+	
+	/**
+	 * @param parameters see setParameters
+	 * @param run if false, the simulation is only initialized and its
+	 * time steps are executed by the caller (see step), for instance
+	 * by the benchmarks
+	 */
+	Broadcasting(Properties parameters, boolean run) {
+		display = false;
+		printIterations = false;
+		pacing = Pacer.AS_FAST_AS_POSSIBLE;
+		setParameters(parameters);
+		if(run) run();
+		else init();
+	}
+	
+	private void run() {
+		init();
+		if(display) {
+			viewerPipe.flush();
+			Tools.hitakey("Go!!");
+		}
+		try {
+			moveAndBroadcast();
+		} finally {
+			close();
+		}
+	}
+	
+	/**
+	 * the threads of the parallel steps are stopped, the recording and
+	 * the trace are closed. The simulation cannot step anymore.
+	 */
+	@Override
+	public void close() {
+		if(parallel != null) parallel.shutdown();
+		try {
+			if(recorder != null) recorder.close();
+			if(traceWriter != null) traceWriter.close();
+		} catch(IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+	
+	/**
+	 * the graph, the stations, the broadcast and the mobility model
+	 */
+	void init() {
+		random = new RandomStreams(seed);
 		initGraph();
-		if(broadcastingStrategy != NO_BROADCASTING) {
+		if(printIterations) {
+			nervousness = new Nervousness(state);
+			addTopologyListener(nervousness);
+			components = new Components(nbNodes);
+			addTopologyListener(components);
+		}
+		if(protocolNames != null) initProtocols();
+		else if(broadcastingStrategy == MULTI_SOURCE_FLOODING
+				|| broadcastingStrategy == MULTI_SOURCE_FLOODING_WITH_DELAY) initMultiSource();
+		else if(broadcastingStrategy != NO_BROADCASTING) {
 			initBroadcast();
-			System.out.println("source is: "+source.getId());
+			if(printStatistics) System.out.println("source is: "+source.getId());
 		}
 		initMobility();
-		Tools.hitakey("Go!!");
-		moveAndBroadcast();
+		if(topologyUpdate == KINETIC && Scenario == 1) {
+			// a segment is at most the diagonal at a speed of at least 1
+			kinetic = new KineticTopology(this,(int)Math.ceil(envSize*Math.sqrt(2)));
+		}
+		else if(topologyUpdate == VERLET) verlet = new VerletLists(this,skin);
+		if(threads > 1) parallel = new ParallelStep(this,threads);
+		pacer = new Pacer(pacing, pacing == Pacer.DILATION ? dilation : tickRate);
+		if(trace != null) {
+			try {
+				traceWriter = new TraceWriter(this,trace);
+			} catch(IOException ioe) {
+				throw new IllegalArgumentException("cannot write the trace "+trace, ioe);
+			}
+		}
+		nbIterations = 0;
+	}
+	
+	/**
+	 * reads the execution parameters, the keys are the names of the
+	 * fields: nbNodes, d, envSize, mobilityModel (RWP, MANHATTAN, 
+	 * MARKOVIAN or its number), topologyUpdate (GRID, KINETIC or 
+	 * VERLET), skin, Scenario, TTL, r, p, q, seed, broadcastingStrategy, 
+	 * maxRAD, sources, maxIterations, threads, pacing (AS_FAST_AS_POSSIBLE, 
+	 * FIXED_RATE or DILATION), tickRate, dilation, dgs (file of the 
+	 * recorded graph), trace (file of its binary trace), protocols 
+	 * (broadcasts separated by ',', see initProtocols), 
+	 * printIterations, printStatistics. 
+	 * Missing keys keep their default value.
+	 * @param parameters
+	 */
+	public void setParameters(Properties parameters) {
+		for(String key: parameters.stringPropertyNames()) {
+			String value = parameters.getProperty(key).trim();
+			switch(key) {
+			case "nbNodes": nbNodes = Integer.parseInt(value); indexNodes = nbNodes; break;
+			case "d": d = Integer.parseInt(value); break;
+			case "envSize": envSize = Integer.parseInt(value); break;
+			case "mobilityModel": mobilityModel = constant(value); break;
+			case "topologyUpdate": topologyUpdate = constant(value); break;
+			case "skin": skin = Double.parseDouble(value); break;
+			case "Scenario": Scenario = Integer.parseInt(value); break;
+			case "TTL": TTL = Integer.parseInt(value); break;
+			case "r": r = Double.parseDouble(value); break;
+			case "p": p = Double.parseDouble(value); break;
+			case "q": q = Double.parseDouble(value); break;
+			case "seed": seed = Long.parseLong(value); break;
+			case "broadcastingStrategy": broadcastingStrategy = constant(value); break;
+			case "maxRAD": maxRAD = Integer.parseInt(value); break;
+			case "sources": sources = Integer.parseInt(value); break;
+			case "protocols": protocolNames = value.split(","); break;
+			case "maxIterations": maxIterations = Integer.parseInt(value); break;
+			case "threads": threads = Integer.parseInt(value); break;
+			case "pacing": pacing = constant(value); break;
+			case "tickRate": tickRate = Double.parseDouble(value); break;
+			case "dilation": dilation = Double.parseDouble(value); break;
+			case "dgs": dgs = value; break;
+			case "trace": trace = value; break;
+			case "printIterations": printIterations = Boolean.parseBoolean(value); break;
+			case "printStatistics": printStatistics = Boolean.parseBoolean(value); break;
+			default: throw new IllegalArgumentException("unknown parameter: "+key);
+			}
+		}
+		if(maxRAD < 1) throw new IllegalArgumentException("maxRAD must be at least 1 (one step of delay): "+maxRAD);
+		distanceInterStreets = envSize/nbParallelStreets;
+	}
+	
+	/**
+	 * value of a mobility model, broadcasting strategy, topology 
+	 * update or pacing given
+	 * either by its name or by its number
+	 */
+	static int constant(String value) {
+		switch(value) {
+		case "RWP": return RWP;
+		case "MANHATTAN": return MANHATTAN;
+		case "MARKOVIAN": return MARKOVIAN;
+		case "NO_BROADCASTING": return NO_BROADCASTING;
+		case "SIMPLE_FLOODING": return SIMPLE_FLOODING;
+		case "SIMPLE_FLOODING_WITH_DELAY": return SIMPLE_FLOODING_WITH_DELAY;
+		case "MULTI_SOURCE_FLOODING": return MULTI_SOURCE_FLOODING;
+		case "MULTI_SOURCE_FLOODING_WITH_DELAY": return MULTI_SOURCE_FLOODING_WITH_DELAY;
+		case "GRID": return GRID;
+		case "KINETIC": return KINETIC;
+		case "VERLET": return VERLET;
+		case "AS_FAST_AS_POSSIBLE": return Pacer.AS_FAST_AS_POSSIBLE;
+		case "FIXED_RATE": return Pacer.FIXED_RATE;
+		case "DILATION": return Pacer.DILATION;
+		default: return Integer.parseInt(value);
+		}
 	}
 	
 	/**
@@ -103,236 +309,134 @@ public class Broadcasting {
 	 *    are moving according to the chosen mobility model.
 	 *    For simple flooding, this phase stops as soon as 
 	 *    during one time step no transmission has been done.  
+	 *    For flooding with delay, as soon as no transmission 
+	 *    is pending.
 	 * 3) statistical results are displayed in the console/terminal.
  	 */
 	private void moveAndBroadcast() {
 		// execution of the algorithm		
 		boolean finished = false;
-		int nbIterations = 0;		
-		int nbOn = 0, nbOff = 0;
-		ArrayList<Node> vT = new ArrayList<>();
-		ArrayList<Node> vTprev = new ArrayList<>();
-		ArrayList<Edge> eT = new ArrayList<>();
-		ArrayList<Edge> eTprev = new ArrayList<>();
 		
+		pacer.start();
 		while(!finished) {
-			nbIterations++;
-			if(broadcastingStrategy == NO_BROADCASTING) {
-				if(nbIterations > maxIterations) finished = true;
-			} else {
-				for(Node u:readyToSend) {
-					switch(broadcastingStrategy) {
-					case SIMPLE_FLOODING:
-						simpleFlooding(u); 
-						break;
-					case SIMPLE_FLOODING_WITH_DELAY:
-						break;
-					}
-				}
-				readyToSend.clear();
-				for(Node u:stations) {
-					if(u.hasAttribute("readyToSend") && !readyToSend.contains(u)) {
-						readyToSend.add(u);
-						u.removeAttribute("readyToSend");
-					}
-				}
-				if(readyToSend.size() == 0) finished=true;
-			}
-			// moving
-			for(Node u:stations) {
-				switch(mobilityModel) {
-				case RWP:
-					moveRWP(u);
-					break;
-				case MANHATTAN:
-					moveManhattan(u);
-					break;
-				case MARKOVIAN:
-					moveMarkovian(u);
-					break;
-				}
-			}			
-			verifyEdges();			
-			switch(Scenario) {
-			case 1:							
-				for(Node u: stations) {
-					int lifetime = u.getAttribute("message_lifetime");
-					if(lifetime>0) {
-						u.setAttribute("message_lifetime", lifetime-1);
-						if (lifetime-1 <= 0) {
-							if(u.hasAttribute("hasTheMessage")) {
-								u.removeAttribute("hasTheMessage");}
-							if(u.hasAttribute("nbOfReceptions")){u.removeAttribute("nbOfReceptions");}
-							if(u.hasAttribute("readyToSend")){u.removeAttribute("readyToSend");}
-							if(u.hasAttribute("notTransmittedYet")){u.setAttribute("notTransmittedYet", false);}
-							if(u.hasAttribute("ui.style")){u.setAttribute("ui.style", TTLexpired);}						
-						}
-					}
-				
-				}
-				break;
-			case 2:				
-				Collection<Node> nodes = g.getNodeSet();
-				double nodeSize = nodes.size();
-				double numofNodes = nodeSize*r;
-				int numberofNodes = (int) numofNodes;		
-				
-				removeFromGraph(g, numberofNodes,envSize);	
-				addToGraph(g,numberofNodes, d,envSize,indexNodes);
-				updateGraph();
-				for(Node u:stations)
-				{
-					chooseDestination(u);
-				}
-				indexNodes += numberofNodes;
-				break;
-			}
-			switch(mobilityModel) {		
-			case MARKOVIAN:		
-				for(Edge e:g.getEdgeSet()) {
-					if(e.getAttribute("state")==null) {
-						e.addAttribute("state", alea.nextBoolean());
-						if((boolean)e.getAttribute("state")) {
-							e.addAttribute("ui.style",edgeONstyle);
-							nbOn++;
-						}
-						else {
-							e.addAttribute("ui.style",edgeOFFstyle);
-							nbOff++;
-						}
-					}
-					else {			
-						if((boolean)e.getAttribute("state")) { // edge is on
-							if(alea.nextDouble() > p) { // change of its state
-								e.addAttribute("state",false);
-								e.addAttribute("ui.style",edgeOFFstyle);
-								nbOff++;
-							} else {
-								e.addAttribute("ui.style",edgeONstyle);
-								nbOn++;
-							}
-						} else { // edge is off 
-							if(alea.nextDouble() > q) { // change of its state 
-								e.addAttribute("state",true);
-								e.addAttribute("ui.style",edgeONstyle);
-								nbOn++;
-							} else {
-								e.addAttribute("ui.style",edgeOFFstyle);
-								nbOff++;
-							}
-						}
-					}
-				}
-				break;
-			default:
-				break;
-			}			
-			Tools.pause(delay);
-			for(Node u:stations) {
-				vT.add(u);
-			}
-			for(Edge e:g.getEdgeSet()) {
-				if(mobilityModel == MARKOVIAN) {
-					if((boolean)e.getAttribute("state")) {
-						eT.add(e);
-					}
-				}
-				else {					
-					eT.add(e);
-				}				
-			}			
-			
-			iterationStatistics(nbIterations, vT, vTprev, eT, eTprev);
-			for (Node u: vT) {
-				vTprev.add(u);
-			}			
-			vT.clear();
-			for (Edge e: eT) {
-				eTprev.add(e);
-			}			
-			eT.clear();
+			finished = step();
+			if(display) viewerPipe.frame();
+			pacer.tick(); // waits until the end of the period of the step
+			if(!printIterations) continue;
+			iterationStatistics(nbIterations);
 			System.out.println("nb iterations:"+nbIterations);
-			Tools.hitakey("Start new interation");
+			if(display) {
+				viewerPipe.flush();
+				Tools.hitakey("Start new interation");
+				pacer.resume();
+			}
 			System.out.println("\n");
 			
 		}	
 		
+		if(display) viewerPipe.flush(); // the last frame
 		statistics(nbIterations);
+		if(printStatistics && pacing != Pacer.AS_FAST_AS_POSSIBLE) System.out.println(pacer.report());
 	}
 	
-	
-	// ================= STATISTICS ================
-	
-	public void iterationStatistics(int nbIter, ArrayList<Node> vT,	ArrayList<Node> vTprev,	ArrayList<Edge> eT, 
-	ArrayList<Edge> eTprev) {
-		double dens = 0;
-		int hasMessage = 0;
-		double vNervousness = 0;
-		double eNervousness = 0;		
-		ConnectedComponents cc = new ConnectedComponents();
-		if (mobilityModel != MARKOVIAN) {
-			dens = Toolkit.density(g);
-			cc.init(g);
+	/**
+	 * one time step: the senders transmit, the stations move, then 
+	 * the links and the stations (Scenario 2) are updated
+	 * @return true if the broadcast is finished or if the maximum 
+	 * number of iterations is reached
+	 */
+	boolean step() {
+		boolean finished = false;
+		nbIterations++;
+		if(nbIterations > maxIterations) finished = true;
+		if(recorder != null) g.stepBegins(nbIterations);
+		switch(broadcastingStrategy) {
+		case SIMPLE_FLOODING:
+		case SIMPLE_FLOODING_WITH_DELAY:
+			// the transmissions, then the lifetimes of the messages (Scenario 1)
+			if(flooding.step(nbIterations)) finished=true;
+			break;
+		case MULTI_SOURCE_FLOODING:
+		case MULTI_SOURCE_FLOODING_WITH_DELAY:
+			if(multiSource.step(nbIterations)) finished=true;
+			break;
 		}
-		else {
-			SingleGraph h = g;
-			for(Edge e:h.getEdgeSet()) {
-				if(!(boolean)e.getAttribute("state")) {
-					h.removeEdge(e);
-				}
+		if(protocols != null) {
+			boolean allFinished = true;
+			for(Flooding f: protocols) {
+				if(!f.finished && !f.step(nbIterations)) allFinished = false;
 			}
-			dens = Toolkit.density(h);				
-			cc.init(h);
+			if(allFinished) finished = true;
 		}
-		for(Node u:stations) {
-			if(u.hasAttribute("hasTheMessage")) {
-				hasMessage += 1;
+		moveStations();
+		if(display || recorder != null) state.syncPositions();
+		if(kinetic != null) kinetic.update(nbIterations);
+		else if(verlet != null) verlet.update();
+		else verifyEdges();
+		switch(Scenario) {
+		case 2:				
+			int numberofNodes = (int)(g.getNodeCount()*r);
+			removeFromGraph(numberofNodes);	
+			addToGraph(numberofNodes,indexNodes);
+			for(int s=state.first(); s>=0; s=state.next(s)) {
+				chooseDestination(s);
 			}
+			indexNodes += numberofNodes;
+			break;
 		}
-		if (Scenario == 2) {
-			//Vertices nervousness
-			ArrayList<Node> vSum = new ArrayList<>();
-			ArrayList<Node> vCross = new ArrayList<>();
-			for(Node u: vT) {
-				vSum.add(u);
-				if(vTprev.contains(u)) {
-					vCross.add(u);
+		switch(mobilityModel) {		
+		case MARKOVIAN:		
+			// only the links whose state changes at this step
+			markov.step(nbIterations);
+			for(int i=0;i<markov.nbChanged();i++) {
+				long link = markov.changed(i);
+				int u = (int)(link >>> 32);
+				int v = (int)link;
+				if(markov.isOn(u,v)) fireLinkAdded(u,v);
+				else fireLinkRemoved(u,v);
+				if(display) {
+					Edge e = state.node[u].getEdgeBetween(state.node[v]);
+					e.addAttribute("ui.style",markov.isOn(u,v) ? edgeONstyle : edgeOFFstyle);
 				}
 			}
-			for(Node u: vTprev) {
-				if(!vSum.contains(u)) {
-					vSum.add(u);
-				}
-			}
-			ArrayList<Node> vDiff = new ArrayList<>();
-			for (Node u: vSum) {
-				if(!vCross.contains(u)) {
-					vDiff.add(u);
-				}				
-			}
-			vNervousness = (double)vDiff.size()/(double)vSum.size();
-		}
-		//Edge nervousness
-		ArrayList<Edge> eSum = new ArrayList<>();
-		ArrayList<Edge> eCross = new ArrayList<>();
-		for(Edge e: eT) {
-			eSum.add(e);
-			if(eTprev.contains(e)) {
-				eCross.add(e);
-			}
+			nbOn += markov.nbOn();
+			nbOff += markov.nbLinks()-markov.nbOn();
+			break;
+		default:
+			break;
+		}			
+		if(protocols != null) {
+			// the results of the protocols finished at this step
+			for(Flooding f: protocols) if(f.finished && f.iterations == 0) f.statistics(nbIterations);
 		}
-		for(Edge e: eTprev) {
-			if(!eSum.contains(e)) {
-				eSum.add(e);
-			}
+		if(multiSource != null) multiSource.measure(nbIterations);
+		if(traceWriter != null) traceWriter.step(nbIterations);
+		return finished;
+	}
+	
+	
+	// ================= STATISTICS ================
+	
+	/**
+	 * statistics of the current iteration, the nervousness is 
+	 * computed by comparison with the previous iteration
+	 * @param nbIter
+	 */
+	public void iterationStatistics(int nbIter) {
+		double dens = 0;
+		int hasMessage = 0;
+		if (mobilityModel != MARKOVIAN) {
+			dens = Toolkit.density(g);
 		}
-		ArrayList<Edge> eDiff = new ArrayList<>();
-		for (Edge e: eSum) {
-			if(!eCross.contains(e)) {
-				eDiff.add(e);
-			}				
+		else { // only the links that are on
+			float m = markov.nbOn();
+			float n = g.getNodeCount();
+			dens = (2*m)/(n*(n-1));
 		}
-		eNervousness = (double)eDiff.size()/(double)eSum.size();
+		if(flooding != null) hasMessage = flooding.hasTheMessage.cardinality();
+		nervousness.iteration();
+		double vNervousness = nervousness.vertexNervousness;
+		double eNervousness = nervousness.edgeNervousness;
 		System.out.println("Statistics at iteration "+ nbIter + ":");
 		System.out.println("Graph density:"+ dens);
 		System.out.println("Vertices owning the message:"+ hasMessage);
@@ -340,7 +444,8 @@ public class Broadcasting {
 			System.out.println("Vertice nervousness (compared with the previous iteration):"+ vNervousness);
 		}
 		System.out.println("Edge nervousness(compared with the previous iteration):"+ eNervousness);
-		System.out.println("Connected components:"+ cc.getConnectedComponentsCount());	
+		// the corners of the environment are isolated nodes
+		System.out.println("Connected components:"+ (components.count()+g.getNodeCount()-state.size));	
 		
 	}	
 	
@@ -353,183 +458,248 @@ public class Broadcasting {
 	 * message for the stations which receive messages 
 	 * Max performance: 1, min performance: 1/n 
 	 * Max Efficiency: 1, min efficiency: large number  
-	 * 
+	 * For the Edge-Markovian model, the number of links on and off 
+	 * summed over the time steps is printed first.
 	 */	
 	public void statistics(int nbIter) {
-		int nbReachedStations = 0;
-		int sumOfReceivedMessages = 0;
-		for(Node u: stations) {
-			if(u.hasAttribute("hasTheMessage")) {
-				nbReachedStations++;
-				sumOfReceivedMessages += (int)u.getAttribute("nbOfReceptions");
+		iterations = nbIter;
+		if(printStatistics && markov != null) System.out.println("Links on/off:"+nbOn+"/"+nbOff);
+		if(flooding != null) {
+			flooding.statistics(nbIter);
+			reachedStations = flooding.reachedStations;
+			meanReceptions = flooding.meanReceptions;
+		}
+		else if(multiSource != null) {
+			// the means over the sources
+			multiSource.stop(nbIter);
+			double reached = 0;
+			for(int n: multiSource.reachedStations) reached += n;
+			reachedStations = (int)Math.round(reached/Math.max(1, multiSource.nbSources));
+			meanReceptions = MultiSourceFlooding.mean(multiSource.meanReceptions);
+		}
+		else {
+			reachedStations = 0;
+			// no reached station, the protocols have their own results
+			meanReceptions = protocols != null ? 0 : Float.NaN;
+		}
+		if(protocols != null) {
+			for(Flooding f: protocols) if(f.iterations == 0) f.statistics(nbIter); // not finished
+			if(!printStatistics) return;
+			for(int i=0;i<protocols.length;i++) {
+				System.out.println(protocolNames[i].trim()+": "+protocols[i].performance(d,mobilityModel));
 			}
+			return;
 		}
-		System.out.println("Performance ["+stations.size()+"/"+d+"/"
+		if(multiSource != null) {
+			if(printStatistics) System.out.println(multiSource.distributions(d,mobilityModel));
+			return;
+		}
+		if(!printStatistics) return;
+		System.out.println("Performance ["+state.size+"/"+d+"/"
 				+mobilityModel+"/"+broadcastingStrategy+"] "
 				+"("+nbIter+","
-				+nbReachedStations+","+(float)sumOfReceivedMessages/nbReachedStations+")");
+				+reachedStations+","+meanReceptions+")");
 	}
 	
 	// ==================== BROADCASTING STRATEGIES ===========
 	
-
+	// the flooding is run by Flooding (see initBroadcast), the 
+	// simulation only shows its progress
 	
 	/**
-	 * each node verifies if it has a message
-	 * if it has already received the message, and if it 
-	 * has not been transmitted it yet, AND if the 
-	 * message was NOT received during the current time step
-	 * (otherwise, the simulation would not be synchronous),
-	 * it sends the message to all its neighbors. 
-	 * --> each node requires two attributes: theMessage and 
-	 * the information about its transmission
-	 * we can add also the number of times each node receives 
-	 * the message
-	 * @param u
+	 * station s is going to transmit the message: it is shown as done, 
+	 * after a key is hit in step by step mode
+	 * @param s the slot of the station
 	 */
-	public void simpleFlooding(Node u) {
-		if((boolean)u.getAttribute("notTransmittedYet")) {			
-			if(stepByStep) Tools.hitakey("node "+u.getId()+" will broadcast");
-			u.setAttribute("notTransmittedYet",false);
-			if(u.getId() != source.getId()) u.addAttribute("ui.style",completedTaskStyle);
-			Iterator<Node> neighbors = u.getNeighborNodeIterator();
-			while(neighbors.hasNext()) {
-				Node v = neighbors.next();
-				boolean CanReceive = true;
-				if (Scenario == 1) {
-					//can receive if TTL = 0
-					int lifetime = v.getAttribute("message_lifetime");
-					if(lifetime > 0) {
-						CanReceive = false;
-					}
-				}
-				if(CanReceive && !v.hasAttribute("hasTheMessage")) {
-					v.addAttribute("hasTheMessage",true);
-					v.addAttribute("nbOfReceptions",1);
-					v.addAttribute("readyToSend",true);
-					v.addAttribute("notTransmittedYet",true);
-					v.addAttribute("ui.style",senderStyle);
-					if (Scenario == 1) {
-						v.setAttribute("message_lifetime", TTL);
-					}
-				} else { // we add 1 to the number of receptions
-					v.addAttribute("nbOfReceptions",
-						(int)v.getAttribute("nbOfReceptions")+1); 
-				}	
-			}
-			}
+	void transmitting(int s) {
+		Node u = state.node[s];
+		if(stepByStep) {
+			if(display) viewerPipe.flush();
+			Tools.hitakey("node "+u.getId()+" will broadcast");
+			pacer.resume();
 		}
+		if(display && u != source) u.addAttribute("ui.style",completedTaskStyle);
+	}
 	
+	/**
+	 * station s has just received the message
+	 */
+	void received(int s) {
+		if(display) state.node[s].addAttribute("ui.style",senderStyle);
+	}
 	
+	/**
+	 * the message of station s is lost (Scenario 1)
+	 */
+	void expired(int s) {
+		if(display) state.node[s].setAttribute("ui.style", TTLexpired);
+	}
 	
 	
 	// ==================== MOBILITY MODELS ==================
 
+	/**
+	 * all the stations move according to the mobility model, on 
+	 * several threads if threads > 1 (see ParallelStep)
+	 */
+	public void moveStations() {
+		if(parallel != null) {
+			parallel.moveStations();
+			return;
+		}
+		for(int s=state.first(); s>=0; s=state.next(s)) {
+			switch(mobilityModel) {
+			case RWP:
+				moveRWP(s);
+				break;
+			case MANHATTAN:
+				moveManhattan(s);
+				break;
+			case MARKOVIAN:
+				moveMarkovian(s);
+				break;
+			}
+		}
+	}
+
 
 	/**
-	 * Node u moves according to the Manhattan mobility model 
+	 * station s moves according to the Manhattan mobility model 
 	 */
-	public void moveManhattan(Node u) {
-		if(arrivedAtDestination(u)) chooseDestination(u);
-		else moveStraight(u);
+	public void moveManhattan(int s) {
+		if(arrivedAtDestination(s)) chooseDestination(s);
+		else moveStraight(s);
 	} 
 
 	/**
-	 * Individual movement of a node according to the RWP 
+	 * Individual movement of a station according to the RWP 
 	 * mobility model
-	 * @param u
+	 * @param s
 	 */
-	public void moveRWP(Node u) {
-		if(arrivedAtDestination(u)) chooseDestination(u);
-		else moveStraight(u);
+	public void moveRWP(int s) {
+		if(arrivedAtDestination(s)) chooseDestination(s);
+		else moveStraight(s);
 	}
 	
-	public void moveMarkovian(Node u) {		
-		if(arrivedAtDestination(u)) chooseDestination(u);
-		else moveStraight(u);
+	public void moveMarkovian(int s) {		
+		if(arrivedAtDestination(s)) chooseDestination(s);
+		else moveStraight(s);
 	}
 	
 	
 	/**
 	 * meethod verifies if the station is at destination
-	 * @param u
+	 * @param s
 	 * @return
 	 */
-	public boolean arrivedAtDestination(Node u) {
-		boolean arrived = false;
-		double ux = u.getAttribute("x");
-		double uy = u.getAttribute("y");
-		double dx = u.getAttribute("xdest");
-		double dy = u.getAttribute("ydest");
-		if((ux == dx) && (uy == dy)) arrived = true;
-		return arrived;
+	public boolean arrivedAtDestination(int s) {
+		return (state.x[s] == state.xdest[s]) && (state.y[s] == state.ydest[s]);
 	}
 	
 	/**
-	 * this method computes the next position of node u
-	 * @param u
+	 * this method computes the next position of station s
+	 * @param s
+	 */
+	public void moveStraight(int s) {
+		moveStraight(s,state.x,state.y);
+	}
+	
+	/**
+	 * the next position of station s, computed from its current
+	 * position, is written in nx[s] and ny[s]
+	 * @param s
+	 * @param nx
+	 * @param ny
 	 */
-	public void moveStraight(Node u) {
-		double ux = u.getAttribute("x");
-		double uy = u.getAttribute("y");
-		double dx = u.getAttribute("xdest");
-		double dy = u.getAttribute("ydest");
+	void moveStraight(int s, double[] nx, double[] ny) {
+		double ux = state.x[s];
+		double uy = state.y[s];
+		double dx = state.xdest[s];
+		double dy = state.ydest[s];
 		if(Tools.distance(ux,uy,dx,dy) > proximityThreshold) {
 			double xMove = dx-ux;
 			double yMove = dy-uy;
 			double Norm = Math.sqrt(xMove*xMove + yMove*yMove);
-			double speed = (double)u.getAttribute("speed");
-			double newX = ux + speed*(xMove/Norm);
-			double newY = uy + speed*(yMove/Norm);
-			u.addAttribute("x",newX);
-			u.addAttribute("y",newY);
+			double speed = state.speed[s];
+			nx[s] = ux + speed*(xMove/Norm);
+			ny[s] = uy + speed*(yMove/Norm);
 		} else {
-			u.addAttribute("x",dx);
-			u.addAttribute("y",dy);
+			nx[s] = dx;
+			ny[s] = dy;
 		}
 	}
 	
 	/**
 	 * for the RWP mobility model chooses a new destination.
-	 * @param u
-	 * @param mS
-	 * @param model
+	 * @param s
+	 */
+	public void chooseDestination(int s) {
+		if(kinetic != null) kinetic.trajectoryChanged(s);
+		chooseDestination(s,random.mobility);
+	}
+
+	/**
+	 * new destination and speed of station s drawn from alea, only
+	 * written to the columns of s (see ParallelStep)
+	 * @param s
+	 * @param alea
 	 */
-	public void chooseDestination(Node u) {
-		u.setAttribute("speed",1+alea.nextDouble()*maxSpeed);
+	void chooseDestination(int s, SplittableRandom alea) {
+		state.speed[s] = 1+alea.nextDouble()*maxSpeed;
 		switch(mobilityModel) {
 		case RWP:
-			u.setAttribute("xdest",alea.nextDouble()*envSize);
-			u.setAttribute("ydest",alea.nextDouble()*envSize);
+			state.xdest[s] = alea.nextDouble()*envSize;
+			state.ydest[s] = alea.nextDouble()*envSize;
 			break;
 		case MANHATTAN:
 			if(alea.nextBoolean()) { // movement on the x axis
-				u.setAttribute("xdest",(double)(1+alea.nextInt(nbParallelStreets-1))*distanceInterStreets);
-				u.setAttribute("ydest",(double)u.getAttribute("y"));
+				state.xdest[s] = (double)(1+alea.nextInt(nbParallelStreets-1))*distanceInterStreets;
+				state.ydest[s] = state.y[s];
 			} else {
-				u.setAttribute("xdest",(double)u.getAttribute("x")); 
-				u.setAttribute("ydest",(double)(1+alea.nextInt(nbParallelStreets-1))*distanceInterStreets);
+				state.xdest[s] = state.x[s]; 
+				state.ydest[s] = (double)(1+alea.nextInt(nbParallelStreets-1))*distanceInterStreets;
 			}
 			break;
 		case MARKOVIAN:
 			//same here as RWP as edge markovian is more about the state of the edges than about way of choosing destination
-			u.setAttribute("xdest",alea.nextDouble()*envSize);
-			u.setAttribute("ydest",alea.nextDouble()*envSize);
+			state.xdest[s] = alea.nextDouble()*envSize;
+			state.ydest[s] = alea.nextDouble()*envSize;
 			break;
 		}
 	}
 	
 	/**
-	 * long edges has to be removed and new ones have to be added
+	 * euclidean distance between two stations
+	 */
+	public double distance(int u, int v) {
+		return Tools.distance(state.x[u],state.y[u],state.x[v],state.y[v]);
+	}
+	
+	/**
+	 * long edges has to be removed and new ones have to be added.
+	 * Only the existing edges are checked for removal, and only the
+	 * stations of the 9 cells around a station are checked for
+	 * addition, since closer stations cannot be further away.
+	 * On several threads if threads > 1 (see ParallelStep).
 	 */
 	public void verifyEdges() {
-		for(Node u:stations) {
-			for(Node v:stations) {
-				if(u.getId() != v.getId()) {
-					if((Generator.distance(u,v) < d) && (!u.hasEdgeBetween(v))) {
-						g.addEdge(u.getId()+"--"+v.getId(),u.getId(),v.getId());
-					} else if((Generator.distance(u,v) > d) && (u.hasEdgeBetween(v))) {
-						g.removeEdge((u.getEdgeBetween(v)).getId());
+		if(parallel != null) {
+			parallel.verifyEdges();
+			return;
+		}
+		for(int s=state.first(); s>=0; s=state.next(s)) grid.update(s,state.x[s],state.y[s]);
+		removeLongLinks();
+		// each pair from its smallest slot
+		for(int u=state.first(); u>=0; u=state.next(u)) {
+			int cx = grid.cellX(u);
+			int cy = grid.cellY(u);
+			for(int i=cx-1;i<=cx+1;i++) {
+				for(int j=cy-1;j<=cy+1;j++) {
+					int cell = grid.cell(i,j);
+					if(cell < 0) continue;
+					for(int k=0;k<grid.count(cell);k++) {
+						int v = grid.get(cell,k);
+						if((u < v) && (distance(u,v) < d) && (!linked(u,v))) addLink(u,v);
 					}
 				}
 			}
@@ -537,35 +707,218 @@ public class Broadcasting {
 	}
 	
 	
+	/**
+	 * the links between stations further than d are removed
+	 */
+	void removeLongLinks() {
+		// from the last edge, since a removed edge is replaced by the last one
+		for(int i=g.getEdgeCount()-1;i>=0;i--) {
+			Edge e = g.getEdge(i);
+			int u = state.slotOf(e.getNode0());
+			int v = state.slotOf(e.getNode1());
+			if(distance(u,v) > d) removeLink(e,u,v);
+		}
+	}
+	
+	/**
+	 * the link between u and v is removed if they are further than d, 
+	 * or added if they are closer (same rule as verifyEdges)
+	 * @param u
+	 * @param v
+	 * @return true if u and v are linked
+	 */
+	boolean updateLink(int u, int v) {
+		boolean linked = linked(u,v);
+		double dist = distance(u,v);
+		if(linked && dist > d) {
+			removeLink(state.node[u].getEdgeBetween(state.node[v]),u,v);
+			return false;
+		}
+		if(!linked && dist < d) {
+			addLink(u,v);
+			return true;
+		}
+		return linked;
+	}
+	
+	/**
+	 * @return true if the stations u and v are linked (by an edge of 
+	 * the graph, whatever its Edge-Markovian state)
+	 */
+	boolean linked(int u, int v) {
+		return links.contains(LongHashSet.pair(u,v));
+	}
+	
+	/**
+	 * new link between the stations u and v
+	 */
+	void addLink(int u, int v) {
+		addLink(u,v,nbIterations); // its state may change from the next step
+	}
+
+	/**
+	 * new link between the stations u and v, whose Edge-Markovian 
+	 * state is drawn at step. Its id is the one of the last removed 
+	 * edge, or a new number, so that no string is created at each step.
+	 */
+	void addLink(int u, int v, int step) {
+		String id = freeIds.isEmpty() ? Long.toString(nbLinksCreated++) : freeIds.remove(freeIds.size()-1);
+		Edge e = g.addEdge(id,state.node[u],state.node[v]);
+		links.add(LongHashSet.pair(u,v));
+		if(markov != null) {
+			boolean on = markov.add(u,v,step);
+			if(display) e.addAttribute("ui.style",on ? edgeONstyle : edgeOFFstyle);
+		}
+		fireLinkAdded(e);
+	}
+	
+	/**
+	 * the link e between the stations u and v leaves the graph
+	 */
+	void removeLink(Edge e, int u, int v) {
+		fireLinkRemoved(e);
+		if(markov != null) markov.forget(u,v);
+		links.remove(LongHashSet.pair(u,v));
+		g.removeEdge(e);
+		freeIds.add(e.getId());
+	}
+	
+	
+	// ============= TOPOLOGY EVENTS ===============
+	
+	
+	/**
+	 * the listener is informed of the current stations and links, 
+	 * then of all their changes
+	 * @param listener
+	 */
+	public void addTopologyListener(TopologyListener listener) {
+		listeners.add(listener);
+		for(int s=state.first(); s>=0; s=state.next(s)) listener.stationAdded(s);
+		for(Edge e:g.getEdgeSet()) {
+			if(isActive(e)) listener.linkAdded(state.slotOf(e.getNode0()),state.slotOf(e.getNode1()));
+		}
+	}
+	
+	/**
+	 * an edge is active if it is used by the broadcast and taken into 
+	 * account by the statistics: always, except for the Edge-Markovian 
+	 * model where it has to be on
+	 * @param e
+	 * @return
+	 */
+	public boolean isActive(Edge e) {
+		return (markov == null) || markov.isOn(state.slotOf(e.getNode0()),state.slotOf(e.getNode1()));
+	}
+	
+	void fireStationAdded(int s) {
+		for(int i=0;i<listeners.size();i++) listeners.get(i).stationAdded(s);
+	}
+	
+	void fireStationRemoved(int s) {
+		for(int i=0;i<listeners.size();i++) listeners.get(i).stationRemoved(s);
+	}
+	
+	/**
+	 * e appeared or has just been switched on
+	 */
+	void fireLinkAdded(Edge e) {
+		if(listeners.isEmpty() || !isActive(e)) return;
+		fireLinkAdded(state.slotOf(e.getNode0()),state.slotOf(e.getNode1()));
+	}
+	
+	/**
+	 * the link between the stations u and v becomes active, 
+	 * without any check
+	 */
+	void fireLinkAdded(int u, int v) {
+		for(int i=0;i<listeners.size();i++) listeners.get(i).linkAdded(u,v);
+	}
+	
+	/**
+	 * e is going to be removed or switched off
+	 */
+	void fireLinkRemoved(Edge e) {
+		if(listeners.isEmpty() || !isActive(e)) return;
+		fireLinkRemoved(state.slotOf(e.getNode0()),state.slotOf(e.getNode1()));
+	}
+	
+	/**
+	 * the link between the stations u and v is no longer active, 
+	 * without any check
+	 */
+	void fireLinkRemoved(int u, int v) {
+		for(int i=0;i<listeners.size();i++) listeners.get(i).linkRemoved(u,v);
+	}
+	
+	
 	// ============= INITIALIZATION METHODS ===============
 	
 
 	/**
-	 * initialization of the broadcast
+	 * several broadcasts over the same evolution of the graph, instead 
+	 * of the one of broadcastingStrategy: each protocol is a Flooding 
+	 * with its own state, given by a broadcastingStrategy followed by 
+	 * its parameters that differ from the simulation (TTL, maxRAD, 
+	 * seed for another source), for instance 
+	 * protocols=SIMPLE_FLOODING,SIMPLE_FLOODING:TTL=1,SIMPLE_FLOODING_WITH_DELAY:seed=3
+	 * The moves and the links are computed once for all of them, and 
+	 * the simulation runs until all of them are finished. With the 
+	 * same seed, a protocol reaches the same stations as a simulation 
+	 * of its own (except for the order of the delays, see Replay).
 	 */
-	public void initBroadcast() {
-		source = null;
-		readyToSend = new ArrayList<>();
-		source = Toolkit.randomNode(g);
-		source.addAttribute("hasTheMessage",true);
-		source.addAttribute("nbOfReceptions",0);
-		source.addAttribute("notTransmittedYet",true);
-		source.addAttribute("ui.style",sourceStyle);
-		if (Scenario == 1)
-		{
-			source.setAttribute("message_lifetime", TTL);
+	void initProtocols() {
+		broadcastingStrategy = NO_BROADCASTING;
+		adjacency = new Adjacency(state.capacity);
+		addTopologyListener(adjacency);
+		protocols = new Flooding[protocolNames.length];
+		for(int i=0;i<protocols.length;i++) {
+			protocols[i] = new Flooding(this,adjacency);
+			protocols[i].setParameters(Flooding.parameters(protocolNames[i]));
+			addTopologyListener(protocols[i]);
+			protocols[i].start(state.capacity);
 		}
-		readyToSend.add(source);
+	}
+	
+	/**
+	 * MULTI_SOURCE_FLOODING(_WITH_DELAY): the simple flooding (with 
+	 * delay) from the stations of the first slots (all the stations if 
+	 * sources is 0), all at once (see MultiSourceFlooding), gives the 
+	 * distributions over the sources of the results of the flooding, 
+	 * and their means as the results of the simulation
+	 */
+	void initMultiSource() {
+		adjacency = new Adjacency(state.capacity);
+		addTopologyListener(adjacency);
+		int n = sources <= 0 ? state.size : Math.min(sources, state.size);
+		multiSource = new MultiSourceFlooding(this,adjacency,n);
+		addTopologyListener(multiSource);
+		multiSource.start();
+	}
+	
+	/**
+	 * initialization of the broadcast: a Flooding over the neighbors of 
+	 * the stations, from a source drawn from the broadcast stream
+	 */
+	public void initBroadcast() {
+		adjacency = new Adjacency(state.capacity);
+		addTopologyListener(adjacency);
+		flooding = new Flooding(this,adjacency);
+		if(display || stepByStep) flooding.shown = this;
+		addTopologyListener(flooding);
+		flooding.start(state.capacity);
+		source = state.node[flooding.source];
+		if(display) source.addAttribute("ui.style",sourceStyle);
 	}
 	
 
 	public void initMobility() {
 		switch(mobilityModel) {
 		case RWP:
-			for(Node u:stations) chooseDestination(u);
+			for(int s=state.first(); s>=0; s=state.next(s)) chooseDestination(s);
 			break;
 		case MANHATTAN:
-			for(Node u:stations) chooseFirstDestination(u);
+			for(int s=state.first(); s>=0; s=state.next(s)) chooseFirstDestination(s);
 			// for avoiding streets at the border of the environment
 			if(envSize % nbParallelStreets == 0) {
 				distanceInterStreets = envSize/nbParallelStreets - 2;
@@ -573,28 +926,29 @@ public class Broadcasting {
 			break;
 		case MARKOVIAN:
 			//same as RWP
-			for(Node u:stations) chooseDestination(u);
+			for(int s=state.first(); s>=0; s=state.next(s)) chooseDestination(s);
 			break;			
 		}
+		if(display || recorder != null) state.syncPositions();
 	}
 	
 	
-	public void chooseFirstDestination(Node u) {
-		u.setAttribute("speed",1+alea.nextDouble()*maxSpeed);
-		double x = u.getAttribute("x");
-		double y = u.getAttribute("y");
-		if(alea.nextBoolean()) {
+	public void chooseFirstDestination(int s) {
+		state.speed[s] = 1+random.mobility.nextDouble()*maxSpeed;
+		double x = state.x[s];
+		double y = state.y[s];
+		if(random.mobility.nextBoolean()) {
 			if(x/distanceInterStreets < 1) x = distanceInterStreets;
 			else x = (int)(x/distanceInterStreets)*distanceInterStreets;
-			u.setAttribute("x",x);
-			u.setAttribute("xdest",x);
-			u.setAttribute("ydest",(double)(1+alea.nextInt(nbParallelStreets-1))*distanceInterStreets);
+			state.x[s] = x;
+			state.xdest[s] = x;
+			state.ydest[s] = (double)(1+random.mobility.nextInt(nbParallelStreets-1))*distanceInterStreets;
 		} else {
 			if(y/distanceInterStreets < 1) y = distanceInterStreets;
 			else y = (int)(y/distanceInterStreets)*distanceInterStreets;
-			u.setAttribute("y",y);
-			u.setAttribute("xdest",(double)(1+alea.nextInt(nbParallelStreets-1))*distanceInterStreets);
-			u.setAttribute("ydest",y);
+			state.y[s] = y;
+			state.xdest[s] = (double)(1+random.mobility.nextInt(nbParallelStreets-1))*distanceInterStreets;
+			state.ydest[s] = y;
 		}
 	}
 	
@@ -613,24 +967,28 @@ nodes are randomly chosen and new added nodes are randomly positioned in the are
 and Manhattan.
 	 */
 	public void initGraph() {
-		g = Generator.randomGeometricGraphW(nbNodes,d,envSize);
+		g = Generator.randomGeometricGraphW(nbNodes,d,envSize,random.generator);
 		g.addAttribute("ui.antialias");
-		g.display(false);
-		stations = new ArrayList<>();
+		if(display) viewerPipe = CoalescingPipe.display(g);
+		if(dgs != null) {
+			try {
+				recorder = DgsRecorder.record(g,dgs);
+			} catch(IOException ioe) {
+				throw new IllegalArgumentException("cannot write the recording "+dgs, ioe);
+			}
+		}
+		state = new StationState(nbNodes);
+		grid = new SpatialGrid(d,envSize,nbNodes);
 		for(Node u: g.getNodeSet()) {
-			stations.add(u);
+			int s = state.add(u);
+			grid.update(s,state.x[s],state.y[s]);
 			if(labelOnNodes) {
 				u.setAttribute("ui.label",u.getId());
 				u.setAttribute("ui.style","text-alignment:above;");
 			}
-			switch(Scenario) {
-			case(1):
-				u.addAttribute("message_lifetime", 0);
-				break;			
-			case(2):
-				break;
-			}
 		}
+		links = new LongHashSet(g.getEdgeCount());
+		for(Edge e: g.getEdgeSet()) links.add(LongHashSet.pair(state.slotOf(e.getNode0()),state.slotOf(e.getNode1())));
 		// construction of the environment
 		Node ne = g.addNode("north-east");
 		ne.setAttribute("x",(double)envSize);
@@ -649,105 +1007,115 @@ and Manhattan.
 		se.setAttribute("y",(double)0);
 		se.setAttribute("ui.style","fill-color:green;size:1px;");
 		if (mobilityModel == MARKOVIAN) {
+			markov = new EdgeMarkovian(g.getEdgeCount(),p,q,random.markov.nextLong());
 			for(Edge e: g.getEdgeSet()) {
-				e.addAttribute("state",alea.nextBoolean()); // on is true off is false
+				boolean on = markov.add(state.slotOf(e.getNode0()),state.slotOf(e.getNode1()),0);
+				if(display) e.addAttribute("ui.style",on ? edgeONstyle : edgeOFFstyle);
 			}
 		}
 		
 	}
 	
-	public void updateGraph() {
-		Iterator<Node> it = stations.iterator();
-		while (it.hasNext()) {
-			Node v = it.next();
-			if (v.hasAttribute("remove")) {
-				it.remove();
-			}
-		}
-		/*for(Node u: stations) {
-			if (u.hasAttribute("remove")) {
-				stations.remove(u);
-				u.removeAttribute("remove");
-			}
-		}*/
-		for(Node u: g.getNodeSet()) {			
-			if (u.hasAttribute("add")) {
-				stations.add(u);
-				u.removeAttribute("add");
+	/**
+	 * randomly chosen stations are removed from the graph (Scenario 2)
+	 * @param numberOfNodes
+	 */
+	public void removeFromGraph(int numberOfNodes) {
+		for(int i=0;i<numberOfNodes && state.size>0;i++) {
+			int s = state.randomSlot(random.churn);
+			Node u = state.node[s];
+			for(int k=0;k<u.getDegree();k++) {
+				Edge e = u.getEdge(k);
+				int v = state.slotOf(e.getOpposite(u));
+				fireLinkRemoved(e);
+				if(markov != null) markov.forget(s,v);
+				links.remove(LongHashSet.pair(s,v));
+				freeIds.add(e.getId());
 			}
+			fireStationRemoved(s);
+			grid.remove(s);
+			state.remove(s,g);
 		}
 	}
-	public void removeFromGraph(SingleGraph g, int numberOfNodes, int environmentSize) {
-		int n = numberOfNodes;
-		int size = environmentSize;
-		Random alea = new Random(System.currentTimeMillis());
-		for(int i=0;i<n;i++) {			
-			Node u = Toolkit.randomNode(g);					
-				while (checkCorner(u, size))
-					{
-						u = Toolkit.randomNode(g);
-					}
-			u.addAttribute("remove", true);
-			g.removeNode(u);
-		}
-	}
-	
-	public boolean checkCorner(Node u, int environmentSize)
-	{
-		int size = environmentSize;		
-		double x = u.getAttribute("x");
-		double y = u.getAttribute("y");
-		if (x == size || x == 0) {
-			if (y == size || y == 0) {
-				return true;				
-			}			
-		}
-		if (y == size || y == 0) {
-			if (x == size || x == 0) {
-				return true;				
-			}	
-		}
-		return false;
-		
-	}
 	
-	public void addToGraph(SingleGraph g, int numberOfNodes, double distanceThrehold, int environmentSize, int index) {		
-		int n = numberOfNodes;
-		int size = environmentSize;
-		double d = distanceThrehold;
-		Random alea = new Random(System.currentTimeMillis());
-		ArrayList<Node> added = new ArrayList<>();
+	/**
+	 * new stations are randomly positioned in the environment (Scenario 2)
+	 * @param numberOfNodes
+	 * @param index number of the first new node (for its id)
+	 */
+	public void addToGraph(int numberOfNodes, int index) {		
+		int[] added = new int[numberOfNodes];
 		// Nodes creation with their coordinates
-		for(int i=0;i<n;i++) {
+		for(int i=0;i<numberOfNodes;i++) {
 			Node u = g.addNode("u_"+(index+i));
-			added.add(u);
 			// random position of the node within the environment
-			double x = alea.nextDouble()*size;
-			double y = alea.nextDouble()*size;
+			double x = random.churn.nextDouble()*envSize;
+			double y = random.churn.nextDouble()*envSize;
 			u.setAttribute("x",x);
 			u.setAttribute("y",y);
-			u.addAttribute("add", true);
+			added[i] = state.add(u);
+			grid.update(added[i],x,y);
+			fireStationAdded(added[i]);
 		}
 		// add edges
-		for(Node u:g.getNodeSet()) {
-			for(Node v:added) {
-				if(u.getId() != v.getId()) {
-					if((Generator.distance(u,v) < d) && (!u.hasEdgeBetween(v)) && !checkCorner(u, envSize)) {
-						Edge e = g.addEdge(u.getId()+"--"+v.getId(),u.getId(),v.getId());
-						if(mobilityModel==MARKOVIAN) {
-							e.addAttribute("state",alea.nextBoolean()); // on is true off is false
-						}
+		if(verlet != null) {
+			verlet.stationsAdded(added);
+			return;
+		}
+		for(int v:added) {
+			int n = 0;
+			int cx = grid.cellX(v);
+			int cy = grid.cellY(v);
+			for(int i=cx-1;i<=cx+1;i++) {
+				for(int j=cy-1;j<=cy+1;j++) {
+					int cell = grid.cell(i,j);
+					if(cell < 0) continue;
+					for(int k=0;k<grid.count(cell);k++) {
+						if(n == candidates.length) candidates = Arrays.copyOf(candidates, 2*n);
+						candidates[n++] = grid.get(cell,k);
 					}
 				}
 			}
+			linkNewStation(v,candidates,n);
+		}
+	}
+
+	/**
+	 * links of the new station v (Scenario 2) with its candidate 
+	 * neighbors closer than d, by increasing slot: the links and their 
+	 * ids are the same whatever the index that gave the candidates 
+	 * (the grid or the Verlet lists)
+	 * @param v
+	 * @param candidates sorted in place, may hold v and removed stations
+	 * @param n number of candidates
+	 */
+	void linkNewStation(int v, int[] candidates, int n) {
+		Arrays.sort(candidates,0,n);
+		for(int k=0;k<n;k++) {
+			int u = candidates[k];
+			if((u != v) && state.used.get(u) && (distance(u,v) < d) && (!linked(u,v))) {
+				// as the links existing before, its state may change at this step
+				addLink(u,v,nbIterations-1);
+			}
 		}
 	}
 	
 	// ============= MAIN ================
 	
+	/**
+	 * without arguments the simulation is displayed (with the basic 
+	 * viewer of gs-core, see Visual for the gs-ui one) and runs step 
+	 * by step, otherwise it runs headless with the given parameters, 
+	 * for instance:
+	 * java proj.Broadcasting nbNodes=5000 mobilityModel=MANHATTAN seed=42
+	 * or with a properties file: java proj.Broadcasting config=run.properties
+	 */
 	public static void main(String[] args) {
-        System.setProperty("org.graphstream.ui.renderer", 
-        		"org.graphstream.ui.j2dviewer.J2DGraphRenderer");
+		if(args.length > 0) {
+			System.setProperty("java.awt.headless", "true");
+			new Broadcasting(Tools.parameters(args));
+			return;
+		}
         new Broadcasting();
 	}
 
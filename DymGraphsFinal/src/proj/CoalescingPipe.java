@@ -0,0 +1,299 @@
+package proj;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.stream.GraphReplay;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.thread.ThreadProxyPipe;
+import org.graphstream.ui.view.Viewer;
+
+/* -----------------------------------------------------------------
+ * Pipe between the simulated graph and the viewer: the events of the
+ * graph are kept until the next frame, then sent in one batch, with
+ * only the last value of each attribute of each element. The viewer
+ * pumps them from its own thread at its own rate (see display), so a
+ * step of the simulation only costs the recording of its events.
+ * The elements and the attributes are sent in their order of arrival,
+ * the elements first (their additions and removals keep their order),
+ * then the attributes. An element added and removed between two
+ * frames is not sent at all, and the pending attributes of an element
+ * are forgotten when it is removed.
+ * -----------------------------------------------------------------
+ */
+public class CoalescingPipe extends SourceBase implements Sink {
+
+	public final static long FRAME = 40; // ms, the period of the viewer
+
+	// kinds of the events on elements
+	final static int NODE_ADDED = 0;
+	final static int NODE_REMOVED = 1;
+	final static int EDGE_ADDED = 2;
+	final static int EDGE_REMOVED = 3;
+	final static int GRAPH_CLEARED = 4;
+	final static int STEP_BEGINS = 5;
+	// kinds of the pending attributes
+	final static int ADDED = 0;
+	final static int CHANGED = 1;
+	final static int REMOVED = 2;
+
+	String id = "coalescing";
+	long framePeriod; // ns
+	long lastFlush = System.nanoTime();
+
+	ArrayList<ElementEvent> elements = new ArrayList<>();
+	HashMap<String,Integer> addedNodes = new HashMap<>(); // pending additions, by id
+	HashMap<String,Integer> addedEdges = new HashMap<>();
+	LinkedHashMap<String,LinkedHashMap<String,Attribute>> nodeAttributes = new LinkedHashMap<>();
+	LinkedHashMap<String,LinkedHashMap<String,Attribute>> edgeAttributes = new LinkedHashMap<>();
+	LinkedHashMap<String,Attribute> graphAttributes = new LinkedHashMap<>();
+
+	static class ElementEvent {
+		int kind;
+		String element, from, to;
+		boolean directed;
+		double step;
+
+		ElementEvent(int kind, String element) {
+			this.kind = kind;
+			this.element = element;
+		}
+	}
+
+	static class Attribute {
+		int kind;
+		Object value;
+
+		Attribute(int kind, Object value) {
+			this.kind = kind;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * @param frame minimum period between two batches (ms), see frame
+	 */
+	public CoalescingPipe(long frame) {
+		framePeriod = frame*1000000;
+	}
+
+	/**
+	 * displays g with the default renderer (see Viewer.newGraphRenderer)
+	 * behind a coalescing pipe, the viewer pumps the batches every
+	 * FRAME ms in its own thread
+	 * @param g
+	 * @return the pipe, the simulation calls frame after each step
+	 */
+	public static CoalescingPipe display(Graph g) {
+		CoalescingPipe pipe = new CoalescingPipe(FRAME);
+		ThreadProxyPipe proxy = new ThreadProxyPipe();
+		pipe.addSink(proxy);
+		Viewer viewer = new Viewer(proxy);
+		viewer.addView(Viewer.DEFAULT_VIEW_ID, Viewer.newGraphRenderer());
+		// the current content of g, then its events
+		GraphReplay replay = new GraphReplay(g.getId()+"-replay");
+		replay.addSink(pipe);
+		replay.replay(g);
+		g.addSink(pipe);
+		pipe.flush();
+		return pipe;
+	}
+
+	/**
+	 * sends the pending events if the last batch is older than the
+	 * frame period
+	 */
+	public void frame() {
+		if(System.nanoTime()-lastFlush >= framePeriod) flush();
+	}
+
+	/**
+	 * sends the pending events
+	 */
+	public void flush() {
+		lastFlush = System.nanoTime();
+		for(ElementEvent e: elements) {
+			if(e == null) continue; // added and removed since the last batch
+			switch(e.kind) {
+			case NODE_ADDED: sendNodeAdded(id,e.element); break;
+			case NODE_REMOVED: sendNodeRemoved(id,e.element); break;
+			case EDGE_ADDED: sendEdgeAdded(id,e.element,e.from,e.to,e.directed); break;
+			case EDGE_REMOVED: sendEdgeRemoved(id,e.element); break;
+			case GRAPH_CLEARED: sendGraphCleared(id); break;
+			case STEP_BEGINS: sendStepBegins(id,e.step); break;
+			}
+		}
+		elements.clear();
+		addedNodes.clear();
+		addedEdges.clear();
+		for(String attribute: graphAttributes.keySet()) {
+			Attribute a = graphAttributes.get(attribute);
+			switch(a.kind) {
+			case ADDED: sendGraphAttributeAdded(id,attribute,a.value); break;
+			case CHANGED: sendGraphAttributeChanged(id,attribute,null,a.value); break;
+			case REMOVED: sendGraphAttributeRemoved(id,attribute); break;
+			}
+		}
+		graphAttributes.clear();
+		for(String node: nodeAttributes.keySet()) {
+			LinkedHashMap<String,Attribute> attributes = nodeAttributes.get(node);
+			for(String attribute: attributes.keySet()) {
+				Attribute a = attributes.get(attribute);
+				switch(a.kind) {
+				case ADDED: sendNodeAttributeAdded(id,node,attribute,a.value); break;
+				case CHANGED: sendNodeAttributeChanged(id,node,attribute,null,a.value); break;
+				case REMOVED: sendNodeAttributeRemoved(id,node,attribute); break;
+				}
+			}
+		}
+		nodeAttributes.clear();
+		for(String edge: edgeAttributes.keySet()) {
+			LinkedHashMap<String,Attribute> attributes = edgeAttributes.get(edge);
+			for(String attribute: attributes.keySet()) {
+				Attribute a = attributes.get(attribute);
+				switch(a.kind) {
+				case ADDED: sendEdgeAttributeAdded(id,edge,attribute,a.value); break;
+				case CHANGED: sendEdgeAttributeChanged(id,edge,attribute,null,a.value); break;
+				case REMOVED: sendEdgeAttributeRemoved(id,edge,attribute); break;
+				}
+			}
+		}
+		edgeAttributes.clear();
+	}
+
+	// ---- coalescing
+
+	/**
+	 * the pending attribute of an element becomes the last event on it
+	 * @param attributes pending attributes of the element
+	 * @param attribute
+	 * @param kind ADDED, CHANGED or REMOVED
+	 * @param value
+	 */
+	private static void merge(LinkedHashMap<String,Attribute> attributes, String attribute, int kind, Object value) {
+		Attribute a = attributes.get(attribute);
+		if(a == null) {
+			attributes.put(attribute, new Attribute(kind,value));
+			return;
+		}
+		if(kind == REMOVED) {
+			// not sent if it did not exist at the last batch
+			if(a.kind == ADDED) attributes.remove(attribute);
+			else a.kind = REMOVED;
+			return;
+		}
+		if(a.kind == REMOVED) a.kind = CHANGED; // existed at the last batch
+		a.value = value;
+	}
+
+	private static LinkedHashMap<String,Attribute> attributesOf(LinkedHashMap<String,LinkedHashMap<String,Attribute>> map, String element) {
+		LinkedHashMap<String,Attribute> attributes = map.get(element);
+		if(attributes == null) {
+			attributes = new LinkedHashMap<>();
+			map.put(element, attributes);
+		}
+		return attributes;
+	}
+
+	// ---- element events
+
+	@Override
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		addedNodes.put(nodeId, elements.size());
+		elements.add(new ElementEvent(NODE_ADDED,nodeId));
+	}
+
+	@Override
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		nodeAttributes.remove(nodeId);
+		Integer added = addedNodes.remove(nodeId);
+		if(added != null) elements.set(added, null);
+		else elements.add(new ElementEvent(NODE_REMOVED,nodeId));
+	}
+
+	@Override
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+		ElementEvent e = new ElementEvent(EDGE_ADDED,edgeId);
+		e.from = fromNodeId;
+		e.to = toNodeId;
+		e.directed = directed;
+		addedEdges.put(edgeId, elements.size());
+		elements.add(e);
+	}
+
+	@Override
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		edgeAttributes.remove(edgeId);
+		Integer added = addedEdges.remove(edgeId);
+		if(added != null) elements.set(added, null);
+		else elements.add(new ElementEvent(EDGE_REMOVED,edgeId));
+	}
+
+	@Override
+	public void graphCleared(String sourceId, long timeId) {
+		elements.clear();
+		addedNodes.clear();
+		addedEdges.clear();
+		graphAttributes.clear();
+		nodeAttributes.clear();
+		edgeAttributes.clear();
+		elements.add(new ElementEvent(GRAPH_CLEARED,null));
+	}
+
+	@Override
+	public void stepBegins(String sourceId, long timeId, double step) {
+		ElementEvent e = new ElementEvent(STEP_BEGINS,null);
+		e.step = step;
+		elements.add(e);
+	}
+
+	// ---- attribute events
+
+	@Override
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		merge(graphAttributes,attribute,ADDED,value);
+	}
+
+	@Override
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue, Object newValue) {
+		merge(graphAttributes,attribute,CHANGED,newValue);
+	}
+
+	@Override
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		merge(graphAttributes,attribute,REMOVED,null);
+	}
+
+	@Override
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		merge(attributesOf(nodeAttributes,nodeId),attribute,ADDED,value);
+	}
+
+	@Override
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+		merge(attributesOf(nodeAttributes,nodeId),attribute,CHANGED,newValue);
+	}
+
+	@Override
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		merge(attributesOf(nodeAttributes,nodeId),attribute,REMOVED,null);
+	}
+
+	@Override
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		merge(attributesOf(edgeAttributes,edgeId),attribute,ADDED,value);
+	}
+
+	@Override
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute, Object oldValue, Object newValue) {
+		merge(attributesOf(edgeAttributes,edgeId),attribute,CHANGED,newValue);
+	}
+
+	@Override
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		merge(attributesOf(edgeAttributes,edgeId),attribute,REMOVED,null);
+	}
+}
@@ -0,0 +1,174 @@
+package proj;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/* -----------------------------------------------------------------
+ * Number of connected components of the stations, maintained from
+ * the topology changes instead of a traversal of the whole graph.
+ * - a new link merges two sets of a union-find structure,
+ * - a removed link may split its set: the set is marked dirty and,
+ *   when the count is requested, only the dirty sets are rebuilt
+ *   from their members and their current links.
+ * The members of each set are kept in a circular list (next), so
+ *   that a set can be enumerated without scanning all the stations.
+ * A removed station that still belongs to a set of other stations
+ *   is only marked, it leaves its list when its (dirty) set is
+ *   rebuilt: each set is rebuilt once, whatever the number of its
+ *   stations removed meanwhile.
+ * Stations are identified by their slot.
+ * -----------------------------------------------------------------
+ */
+public class Components implements TopologyListener {
+
+	int[] parent;
+	int[] size;
+	int[] next; // circular list of the members of each set
+	int[][] adjacency; // current links
+	int[] degree;
+	BitSet dirty = new BitSet(); // sets whose links were removed, by root
+	BitSet removed = new BitSet(); // removed stations still in the list of a dirty set
+	int nbComponents = 0;
+	int[] members = new int[16]; // buffer for rebuilding a set
+
+	public Components(int capacity) {
+		capacity = Math.max(1, capacity);
+		parent = new int[capacity];
+		size = new int[capacity];
+		next = new int[capacity];
+		adjacency = new int[capacity][];
+		degree = new int[capacity];
+	}
+
+	private void ensureCapacity(int s) {
+		if(s < parent.length) return;
+		int capacity = Math.max(2*parent.length, s+1);
+		parent = Arrays.copyOf(parent, capacity);
+		size = Arrays.copyOf(size, capacity);
+		next = Arrays.copyOf(next, capacity);
+		adjacency = Arrays.copyOf(adjacency, capacity);
+		degree = Arrays.copyOf(degree, capacity);
+	}
+
+	public int find(int s) {
+		int root = s;
+		while(parent[root] != root) root = parent[root];
+		while(parent[s] != root) {
+			int p = parent[s];
+			parent[s] = root;
+			s = p;
+		}
+		return root;
+	}
+
+	/**
+	 * merges the sets of u and v
+	 * @return true if they were different sets
+	 */
+	private boolean union(int u, int v) {
+		int ru = find(u);
+		int rv = find(v);
+		if(ru == rv) return false;
+		if(size[ru] < size[rv]) {
+			int t = ru; ru = rv; rv = t;
+		}
+		parent[rv] = ru;
+		size[ru] += size[rv];
+		// concatenation of the two circular lists
+		int t = next[ru];
+		next[ru] = next[rv];
+		next[rv] = t;
+		if(dirty.get(rv)) {
+			dirty.clear(rv);
+			dirty.set(ru);
+		}
+		nbComponents--;
+		return true;
+	}
+
+	private void singleton(int s) {
+		parent[s] = s;
+		size[s] = 1;
+		next[s] = s;
+	}
+
+	public void stationAdded(int s) {
+		ensureCapacity(s);
+		// a reused slot must first leave the list of its former set
+		if(removed.get(s)) rebuild();
+		singleton(s);
+		if(adjacency[s] == null) adjacency[s] = new int[4];
+		degree[s] = 0;
+		nbComponents++;
+	}
+
+	/**
+	 * its links have already been removed: either it is alone in its
+	 * set, or its set is dirty and the station leaves it at the next
+	 * rebuild
+	 */
+	public void stationRemoved(int s) {
+		if(parent[s] == s && size[s] == 1) nbComponents--;
+		else removed.set(s);
+	}
+
+	public void linkAdded(int u, int v) {
+		if(degree[u] == adjacency[u].length) adjacency[u] = Arrays.copyOf(adjacency[u], 2*degree[u]);
+		adjacency[u][degree[u]++] = v;
+		if(degree[v] == adjacency[v].length) adjacency[v] = Arrays.copyOf(adjacency[v], 2*degree[v]);
+		adjacency[v][degree[v]++] = u;
+		union(u,v);
+	}
+
+	public void linkRemoved(int u, int v) {
+		removeNeighbor(u,v);
+		removeNeighbor(v,u);
+		dirty.set(find(u));
+	}
+
+	private void removeNeighbor(int u, int v) {
+		for(int i=0;i<degree[u];i++) {
+			if(adjacency[u][i] == v) {
+				adjacency[u][i] = adjacency[u][--degree[u]];
+				return;
+			}
+		}
+	}
+
+	/**
+	 * each dirty set is split into singletons, without its removed
+	 * stations, then its members are merged again along their current
+	 * links (these links cannot leave the set).
+	 */
+	private void rebuild() {
+		for(int r=dirty.nextSetBit(0); r>=0; r=dirty.nextSetBit(r+1)) {
+			dirty.clear(r);
+			if(members.length < size[r]) members = new int[2*size[r]];
+			int n = 0;
+			int s = r;
+			do {
+				int t = next[s];
+				if(removed.get(s)) {
+					removed.clear(s);
+					singleton(s);
+				}
+				else members[n++] = s;
+				s = t;
+			} while(s != r);
+			for(int i=0;i<n;i++) singleton(members[i]);
+			nbComponents += n-1; // the set counted for one
+			for(int i=0;i<n;i++) {
+				int u = members[i];
+				for(int k=0;k<degree[u];k++) union(u,adjacency[u][k]);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of connected components of the stations
+	 */
+	public int count() {
+		rebuild();
+		return nbComponents;
+	}
+}
@@ -0,0 +1,420 @@
+package proj;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.GraphReplay;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.file.FileSourceDGS;
+
+/* -----------------------------------------------------------------
+ * Streaming reader of a DGS file (see DgsRecorder), for the traces
+ * too large to be held in a graph: the events are sent step by step
+ * to the sinks of the reader (see nextStep), and only the events of
+ * the current step are in memory.
+ * The file is read through a large buffer from a FileChannel, or
+ * through gzip if it is compressed (its first bytes are checked).
+ * A sparse index gives the offset of one step every INDEX steps: it
+ * is built when the file is opened, by scanning the bytes of the
+ * file (mapped in memory if not compressed) for the st lines.
+ * A keyframe is the graph at an indexed step, kept as the DGS of its
+ * content: it is taken the first time a seek goes past the step, by
+ * parsing the events from the previous keyframe. seek starts from the
+ * keyframe just before the wanted step, parses the events up to its
+ * st line into this graph, then the sinks are cleared and given this
+ * graph (see GraphReplay) before the events of the step, so that they
+ * hold the graph of the step as if the file had been read from its
+ * start. Only the events between two indexed steps are parsed again.
+ * The steps are assumed in increasing order, as the simulation
+ * writes them.
+ * -----------------------------------------------------------------
+ */
+public class DgsReader {
+
+	public final static int INDEX = 64; // steps between two entries of the index
+	public final static int BUFFER = 1 << 20; // bytes read at once
+	public final static long WINDOW = 1 << 28; // bytes mapped at once
+
+	String file;
+	boolean compressed;
+	FileChannel channel; // not compressed only
+	byte[] header; // the two first lines: format and name of the graph
+	FileSourceDGS source;
+	Sink[] sinks = new Sink[0];
+	GraphReplay seeks; // the graphs given by seek, with increasing times for the sinks
+
+	// sparse index: step and offset of its st line
+	double[] indexSteps = new double[16];
+	long[] indexOffsets = new long[16];
+	int indexSize = 0;
+	int nbSteps = 0;
+	byte[][] keyframes = new byte[16][]; // graph before the st line of each entry, null until needed
+
+	/**
+	 * opens the file and builds its index, the next step is the first
+	 * one (the content of the graph before its first step)
+	 * @param file
+	 * @throws IOException if the file cannot be read, or is not a dgs file
+	 */
+	public DgsReader(String file) throws IOException {
+		this.file = file;
+		seeks = new GraphReplay(file+"-seek");
+		try(InputStream in = new FileInputStream(file)) {
+			compressed = in.read() == 0x1f && in.read() == 0x8b; // magic number of gzip
+		}
+		if(!compressed) channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+		try(InputStream in = open(0)) {
+			header = headerOf(in);
+		}
+		buildIndex();
+		rewind();
+	}
+
+	/**
+	 * @param file
+	 * @return true if file is a DGS file, compressed with gzip or not
+	 * @throws IOException if the file cannot be read
+	 */
+	public static boolean isDgs(String file) throws IOException {
+		try(InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			in.mark(2);
+			InputStream text = in.read() == 0x1f && in.read() == 0x8b ? null : in;
+			in.reset();
+			if(text == null) text = new GZIPInputStream(in);
+			return text.read() == 'D' && text.read() == 'G' && text.read() == 'S';
+		}
+	}
+
+	/**
+	 * @param sink receives the events of the next steps
+	 */
+	public void addSink(Sink sink) {
+		sinks = Arrays.copyOf(sinks, sinks.length+1);
+		sinks[sinks.length-1] = sink;
+		source.addSink(sink);
+		seeks.addSink(sink);
+	}
+
+	/**
+	 * sends the events of the next step to the sinks: its stepBegins,
+	 * then its events (the first call sends the events before the
+	 * first step)
+	 * @return false if the file is finished
+	 * @throws IOException
+	 */
+	public boolean nextStep() throws IOException {
+		return source.nextStep();
+	}
+
+	/**
+	 * the next step is the first one of the file
+	 * @throws IOException
+	 */
+	public void rewind() throws IOException {
+		start(open(0), null);
+	}
+
+	/**
+	 * the next step is the first one not before step: the sinks are
+	 * cleared and given the graph before this step
+	 * @param step
+	 * @throws IOException
+	 */
+	public void seek(double step) throws IOException {
+		// last indexed step before step
+		int i = Arrays.binarySearch(indexSteps, 0, indexSize, step);
+		if(i < 0) i = -i-2;
+		long offset = i < 0 ? 0 : indexOffsets[i];
+		SingleGraph graph = i < 0 ? new SingleGraph(file) : keyframe(i);
+		InputStream in = open(offset);
+		StepScanner scanner = new StepScanner(offset) {
+			@Override
+			boolean found(double s, long lineOffset) {
+				return s >= step;
+			}
+		};
+		byte[] buffer = new byte[BUFFER];
+		int n;
+		long found = -1;
+		while(found < 0 && (n = in.read(buffer)) > 0) found = scanner.scan(ByteBuffer.wrap(buffer,0,n));
+		in.close();
+		if(found < 0) found = scanner.offset; // after the last step: the end of the file
+		parse(graph, offset, found);
+		seeks.sendGraphCleared(file+"-seek");
+		seeks.replay(graph);
+		start(open(found), header);
+	}
+
+	/**
+	 * @return number of steps of the file
+	 */
+	public int getStepCount() {
+		return nbSteps;
+	}
+
+	public void close() throws IOException {
+		source.end();
+		if(channel != null) channel.close();
+	}
+
+	// ---- input
+
+	/**
+	 * @param offset in the uncompressed bytes
+	 * @return the bytes of the file from offset
+	 */
+	private InputStream open(long offset) throws IOException {
+		if(!compressed) return new BufferedInputStream(new ChannelInput(channel,offset), BUFFER);
+		InputStream in = new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), BUFFER), BUFFER);
+		long skipped = 0;
+		while(skipped < offset) {
+			long n = in.skip(offset-skipped);
+			if(n <= 0) {
+				in.close();
+				throw new EOFException(file+" is shorter than its index");
+			}
+			skipped += n;
+		}
+		return in;
+	}
+
+	/**
+	 * bytes of a channel from an offset, with their own position: the
+	 * streams of a channel are independent, and it is not closed by
+	 * them
+	 */
+	private static class ChannelInput extends InputStream {
+		FileChannel channel;
+		long position;
+
+		ChannelInput(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b,0,1) < 0 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(len == 0) return 0;
+			int n = channel.read(ByteBuffer.wrap(b,off,len), position);
+			if(n > 0) position += n;
+			return n;
+		}
+	}
+
+	/**
+	 * a new parser reads in, after header if in does not start with it
+	 */
+	private void start(InputStream in, byte[] header) throws IOException {
+		if(source != null) source.end();
+		source = new FileSourceDGS();
+		for(Sink sink: sinks) source.addSink(sink);
+		if(header != null) in = new SequenceInputStream(new ByteArrayInputStream(header), in);
+		source.begin(in);
+	}
+
+	/**
+	 * @return the two first lines of in
+	 */
+	private byte[] headerOf(InputStream in) throws IOException {
+		byte[] bytes = new byte[256];
+		int n = 0;
+		int lines = 0;
+		while(lines < 2) {
+			int b = in.read();
+			if(b < 0) break;
+			if(n == bytes.length) bytes = Arrays.copyOf(bytes, 2*n);
+			bytes[n++] = (byte)b;
+			if(b == '\n') lines++;
+		}
+		if(n < 3 || bytes[0] != 'D' || bytes[1] != 'G' || bytes[2] != 'S') throw new IOException(file+" is not a dgs file");
+		return Arrays.copyOf(bytes, n);
+	}
+
+	// ---- keyframes
+
+	/**
+	 * @param i entry of the index
+	 * @return the graph before the st line of entry i, from its
+	 * keyframe, taken first if needed from the previous one
+	 */
+	private SingleGraph keyframe(int i) throws IOException {
+		int j = i;
+		while(j >= 0 && keyframes[j] == null) j--;
+		SingleGraph graph = new SingleGraph(file);
+		if(j >= 0) parse(graph, new ByteArrayInputStream(keyframes[j]));
+		for(int k=j+1;k<=i;k++) {
+			parse(graph, k == 0 ? 0 : indexOffsets[k-1], indexOffsets[k]);
+			keyframes[k] = snapshot(graph);
+		}
+		return graph;
+	}
+
+	/**
+	 * @return the content of graph in DGS (see DgsRecorder)
+	 */
+	private static byte[] snapshot(SingleGraph graph) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DgsRecorder.Dgs dgs = new DgsRecorder.Dgs();
+		dgs.begin(bytes);
+		GraphReplay replay = new GraphReplay(graph.getId());
+		replay.addSink(dgs);
+		replay.replay(graph);
+		dgs.end();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * the events of the file from offset from to offset to (excluded)
+	 * are given to graph
+	 */
+	private void parse(SingleGraph graph, long from, long to) throws IOException {
+		InputStream in = new Bounded(open(from), to-from);
+		if(from > 0) in = new SequenceInputStream(new ByteArrayInputStream(header), in);
+		parse(graph, in);
+	}
+
+	/**
+	 * all the events of the DGS of in are given to graph
+	 */
+	private static void parse(SingleGraph graph, InputStream in) throws IOException {
+		FileSourceDGS parser = new FileSourceDGS();
+		parser.addSink(graph);
+		parser.begin(in);
+		while(parser.nextStep());
+		parser.end();
+	}
+
+	/**
+	 * the first bytes of a stream
+	 */
+	private static class Bounded extends FilterInputStream {
+		long remaining;
+
+		Bounded(InputStream in, long length) {
+			super(in);
+			remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if(remaining <= 0) return -1;
+			remaining--;
+			return in.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(remaining <= 0) return -1;
+			int n = in.read(b, off, (int)Math.min(len, remaining));
+			if(n > 0) remaining -= n;
+			return n;
+		}
+	}
+
+	// ---- index
+
+	/**
+	 * one step every INDEX steps, from a scan of the whole file
+	 */
+	private void buildIndex() throws IOException {
+		StepScanner scanner = new StepScanner(0) {
+			@Override
+			boolean found(double s, long lineOffset) {
+				if(nbSteps++ % INDEX == 0) {
+					if(indexSize == indexSteps.length) {
+						indexSteps = Arrays.copyOf(indexSteps, 2*indexSize);
+						indexOffsets = Arrays.copyOf(indexOffsets, 2*indexSize);
+						keyframes = Arrays.copyOf(keyframes, 2*indexSize);
+					}
+					indexSteps[indexSize] = s;
+					indexOffsets[indexSize++] = lineOffset;
+				}
+				return false;
+			}
+		};
+		if(compressed) {
+			try(InputStream in = open(0)) {
+				byte[] buffer = new byte[BUFFER];
+				int n;
+				while((n = in.read(buffer)) > 0) scanner.scan(ByteBuffer.wrap(buffer,0,n));
+			}
+			return;
+		}
+		long size = channel.size();
+		for(long position=0; position<size; position+=WINDOW) {
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size-position));
+			scanner.scan(window);
+		}
+	}
+
+	/**
+	 * finds the st lines in the bytes of the file given in order, the
+	 * lines may be split between two buffers
+	 */
+	static abstract class StepScanner {
+		long offset; // of the next byte
+		long lineOffset; // of the current line
+		boolean lineStart = true;
+		int matched = -1; // characters of "st " matched at the start of the line, -1 if none
+		StringBuilder value = new StringBuilder();
+
+		StepScanner(long offset) {
+			this.offset = offset;
+		}
+
+		/**
+		 * @param s step of an st line
+		 * @param lineOffset offset of the line
+		 * @return true to stop the scan
+		 */
+		abstract boolean found(double s, long lineOffset);
+
+		/**
+		 * @return offset of the line for which found returned true, -1 if none
+		 */
+		long scan(ByteBuffer bytes) {
+			while(bytes.hasRemaining()) {
+				byte b = bytes.get();
+				offset++;
+				if(lineStart) {
+					lineStart = false;
+					lineOffset = offset-1;
+					matched = 0;
+				}
+				if(b == '\n') {
+					lineStart = true;
+					if(matched == 3) {
+						double s = Double.parseDouble(value.toString().trim());
+						value.setLength(0);
+						if(found(s,lineOffset)) return lineOffset;
+					}
+					matched = -1;
+				}
+				else if(matched == 3) value.append((char)b);
+				else if(matched >= 0) matched = b == "st ".charAt(matched) ? matched+1 : -1;
+			}
+			return -1;
+		}
+	}
+}
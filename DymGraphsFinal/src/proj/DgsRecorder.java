@@ -0,0 +1,413 @@
+package proj;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.stream.GraphReplay;
+import org.graphstream.stream.Sink;
+import org.graphstream.stream.file.FileSinkDGS;
+
+/* -----------------------------------------------------------------
+ * Recording of the evolution of the graph in a DGS file: the content
+ * of the graph, then all its events (nodes and edges added and
+ * removed, attributes, among which the positions, and the steps).
+ * The recorder is a sink of the graph: the simulation only stores
+ * each event in a chunk (its kind, the ids and the value, which are
+ * not copied), and the full chunks are written by a background
+ * thread with FileSinkDGS, in a buffered stream, compressed with gzip
+ * if the name of the file ends with .gz.
+ * The chunks are recycled and at most QUEUE of them wait for the
+ * writer: if it falls behind, the simulation waits for it, so that
+ * the memory of the recording is bounded.
+ * A failure of the writer is reported by the next chunk given to it
+ * (UncheckedIOException) or by close.
+ * The values are written after their event by the writer thread, so
+ * they must not be modified afterwards (numbers and strings are not).
+ * -----------------------------------------------------------------
+ */
+public class DgsRecorder implements Sink {
+
+	public final static int CHUNK = 8192; // events by chunk
+	public final static int QUEUE = 16; // chunks waiting for the writer
+	public final static int BUFFER = 1 << 16; // bytes of the output buffer
+
+	// kinds of the events
+	final static byte NODE_ADDED = 0;
+	final static byte NODE_REMOVED = 1;
+	final static byte EDGE_ADDED = 2;
+	final static byte DIRECTED_EDGE_ADDED = 3;
+	final static byte EDGE_REMOVED = 4;
+	final static byte GRAPH_CLEARED = 5;
+	final static byte STEP_BEGINS = 6;
+	final static byte GRAPH_ATTRIBUTE_ADDED = 7;
+	final static byte GRAPH_ATTRIBUTE_CHANGED = 8;
+	final static byte GRAPH_ATTRIBUTE_REMOVED = 9;
+	final static byte NODE_ATTRIBUTE_ADDED = 10;
+	final static byte NODE_ATTRIBUTE_CHANGED = 11;
+	final static byte NODE_ATTRIBUTE_REMOVED = 12;
+	final static byte EDGE_ATTRIBUTE_ADDED = 13;
+	final static byte EDGE_ATTRIBUTE_CHANGED = 14;
+	final static byte EDGE_ATTRIBUTE_REMOVED = 15;
+
+	String file;
+	Chunk current;
+	int nbChunks = 1; // chunks allocated
+	ArrayBlockingQueue<Chunk> full = new ArrayBlockingQueue<>(QUEUE); // an empty one is the end
+	ArrayBlockingQueue<Chunk> free = new ArrayBlockingQueue<>(QUEUE+2); // waiting + written + current
+	Thread writer;
+	volatile IOException failure = null;
+	boolean closed = false;
+
+	/**
+	 * events of the graph, in arrays
+	 */
+	static class Chunk {
+		int size = 0;
+		byte[] kind = new byte[CHUNK];
+		String[] element = new String[CHUNK];
+		String[] a = new String[CHUNK]; // attribute, or source node of an edge
+		String[] b = new String[CHUNK]; // target node of an edge
+		Object[] value = new Object[CHUNK]; // value of an attribute, or step
+
+		void add(byte k, String e, String x, String y, Object v) {
+			kind[size] = k;
+			element[size] = e;
+			a[size] = x;
+			b[size] = y;
+			value[size] = v;
+			size++;
+		}
+
+		/**
+		 * sends the events to out
+		 */
+		void replay(Sink out) {
+			String id = "dgs";
+			for(int i=0;i<size;i++) {
+				switch(kind[i]) {
+				case NODE_ADDED: out.nodeAdded(id,i,element[i]); break;
+				case NODE_REMOVED: out.nodeRemoved(id,i,element[i]); break;
+				case EDGE_ADDED: out.edgeAdded(id,i,element[i],a[i],b[i],false); break;
+				case DIRECTED_EDGE_ADDED: out.edgeAdded(id,i,element[i],a[i],b[i],true); break;
+				case EDGE_REMOVED: out.edgeRemoved(id,i,element[i]); break;
+				case GRAPH_CLEARED: out.graphCleared(id,i); break;
+				case STEP_BEGINS: out.stepBegins(id,i,(Double)value[i]); break;
+				case GRAPH_ATTRIBUTE_ADDED: out.graphAttributeAdded(id,i,a[i],value[i]); break;
+				case GRAPH_ATTRIBUTE_CHANGED: out.graphAttributeChanged(id,i,a[i],null,value[i]); break;
+				case GRAPH_ATTRIBUTE_REMOVED: out.graphAttributeRemoved(id,i,a[i]); break;
+				case NODE_ATTRIBUTE_ADDED: out.nodeAttributeAdded(id,i,element[i],a[i],value[i]); break;
+				case NODE_ATTRIBUTE_CHANGED: out.nodeAttributeChanged(id,i,element[i],a[i],null,value[i]); break;
+				case NODE_ATTRIBUTE_REMOVED: out.nodeAttributeRemoved(id,i,element[i],a[i]); break;
+				case EDGE_ATTRIBUTE_ADDED: out.edgeAttributeAdded(id,i,element[i],a[i],value[i]); break;
+				case EDGE_ATTRIBUTE_CHANGED: out.edgeAttributeChanged(id,i,element[i],a[i],null,value[i]); break;
+				case EDGE_ATTRIBUTE_REMOVED: out.edgeAttributeRemoved(id,i,element[i],a[i]); break;
+				}
+			}
+		}
+
+		void clear() {
+			// the ids and the values can be collected
+			Arrays.fill(element,0,size,null);
+			Arrays.fill(a,0,size,null);
+			Arrays.fill(b,0,size,null);
+			Arrays.fill(value,0,size,null);
+			size = 0;
+		}
+	}
+
+	/**
+	 * FileSinkDGS writes with a PrintWriter, which keeps its errors.
+	 * The bulk of the file, the nodes and edges added and removed and
+	 * the numbers of the attributes of the nodes (the positions), is
+	 * written as FileSinkDGS does (the numbers as %f) but without a
+	 * formatter, whose cost would be most of the recording.
+	 */
+	static class Dgs extends FileSinkDGS {
+		StringBuilder line = new StringBuilder();
+		String newLine = System.lineSeparator();
+
+		boolean failed() {
+			return out.checkError();
+		}
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			if(plain(nodeId)) writeLine("an \"",nodeId,"\"");
+			else super.nodeAdded(sourceId,timeId,nodeId);
+		}
+
+		@Override
+		public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+			if(plain(nodeId)) writeLine("dn \"",nodeId,"\"");
+			else super.nodeRemoved(sourceId,timeId,nodeId);
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+			if(!plain(edgeId) || !plain(fromNodeId) || !plain(toNodeId)) {
+				super.edgeAdded(sourceId,timeId,edgeId,fromNodeId,toNodeId,directed);
+				return;
+			}
+			line.setLength(0);
+			line.append("ae \"").append(edgeId).append("\" \"").append(fromNodeId)
+				.append(directed ? "\" > \"" : "\"  \"").append(toNodeId).append('"').append(newLine);
+			out.append(line);
+		}
+
+		@Override
+		public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+			if(plain(edgeId)) writeLine("de \"",edgeId,"\"");
+			else super.edgeRemoved(sourceId,timeId,edgeId);
+		}
+
+		private void writeLine(String begin, String id, String end) {
+			line.setLength(0);
+			line.append(begin).append(id).append(end).append(newLine);
+			out.append(line);
+		}
+
+		@Override
+		public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+			if(!fast(nodeId,attribute,value)) super.nodeAttributeAdded(sourceId,timeId,nodeId,attribute,value);
+		}
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+			if(!fast(nodeId,attribute,newValue)) super.nodeAttributeChanged(sourceId,timeId,nodeId,attribute,oldValue,newValue);
+		}
+
+		/**
+		 * writes cn "node"  "attribute":value for a double value with
+		 * 6 decimals, and ids without characters to escape
+		 * @return false if the line is left to FileSinkDGS
+		 */
+		boolean fast(String node, String attribute, Object value) {
+			if(!(value instanceof Double) || !plain(node) || !plain(attribute)) return false;
+			double v = (Double)value;
+			if(!(Math.abs(v) < 1e12)) return false; // infinite, NaN or too large
+			long micros = Math.round(Math.abs(v)*1e6);
+			line.setLength(0);
+			line.append("cn \"").append(node).append("\"  \"").append(attribute).append("\":");
+			if(Double.doubleToRawLongBits(v) < 0) line.append('-'); // as %f, even -0.000000
+			line.append(micros/1000000).append('.');
+			long fraction = micros%1000000;
+			for(long f=100000;f>fraction && f>1;f/=10) line.append('0');
+			line.append(fraction).append(newLine);
+			out.append(line);
+			return true;
+		}
+
+		private static boolean plain(String id) {
+			for(int i=0;i<id.length();i++) {
+				char c = id.charAt(i);
+				if(c == '"' || c == '\\' || c == '\'' || c < ' ') return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * the file is opened and its writer started
+	 * @param file compressed if its name ends with .gz
+	 * @throws IOException if the file cannot be opened
+	 */
+	public DgsRecorder(String file) throws IOException {
+		this.file = file;
+		OutputStream stream = new FileOutputStream(file);
+		if(file.endsWith(".gz")) {
+			stream = new GZIPOutputStream(new BufferedOutputStream(stream, BUFFER), BUFFER) {
+				{ def.setLevel(Deflater.BEST_SPEED); } // the text is repetitive enough
+			};
+		}
+		else stream = new BufferedOutputStream(stream, BUFFER);
+		Dgs dgs = new Dgs();
+		dgs.begin(stream);
+		current = new Chunk();
+		writer = new Thread(() -> write(dgs), "dgs-recorder");
+		writer.setDaemon(true); // an interrupted run does not wait for it
+		writer.start();
+	}
+
+	/**
+	 * records g from its current content (see GraphReplay)
+	 * @param g
+	 * @param file
+	 * @return the recorder, to close at the end of the run
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static DgsRecorder record(Graph g, String file) throws IOException {
+		DgsRecorder recorder = new DgsRecorder(file);
+		GraphReplay replay = new GraphReplay(g.getId()+"-replay");
+		replay.addSink(recorder);
+		replay.replay(g);
+		replay.removeSink(recorder);
+		g.addSink(recorder);
+		return recorder;
+	}
+
+	/**
+	 * writes the remaining events and closes the file
+	 * @throws IOException if an event could not be written
+	 */
+	public void close() throws IOException {
+		if(closed) return;
+		closed = true;
+		try {
+			if(current.size > 0) full.put(current);
+			current = null;
+			full.put(new Chunk()); // empty: the end
+			writer.join();
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IOException("recording of "+file+" interrupted", ie);
+		}
+		if(failure != null) throw failure;
+	}
+
+	// ---- writer thread
+
+	/**
+	 * writes the chunks until the empty one, after a failure they are
+	 * only recycled so that the simulation does not wait for nothing
+	 */
+	private void write(Dgs dgs) {
+		try {
+			while(true) {
+				Chunk c = full.take();
+				if(c.size == 0) break;
+				if(failure == null) {
+					c.replay(dgs);
+					if(dgs.failed()) failure = new IOException("cannot write "+file);
+				}
+				c.clear();
+				free.offer(c);
+			}
+			dgs.end();
+			// the PrintWriter keeps the errors of the last writes and of close
+			if(failure == null && dgs.failed()) failure = new IOException("cannot write "+file);
+		} catch(IOException ioe) {
+			if(failure == null) failure = ioe;
+		} catch(InterruptedException ie) {
+			if(failure == null) failure = new IOException("recording of "+file+" interrupted", ie);
+		}
+	}
+
+	// ---- simulation thread
+
+	private void add(byte kind, String element, String a, String b, Object value) {
+		if(closed) return;
+		current.add(kind,element,a,b,value);
+		if(current.size < CHUNK) return;
+		handOver(current);
+		current = free.poll();
+		if(current != null) return;
+		if(nbChunks < QUEUE+2) {
+			nbChunks++;
+			current = new Chunk();
+			return;
+		}
+		try {
+			current = free.take(); // the writer is behind
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new IOException("recording of "+file+" interrupted", ie));
+		}
+	}
+
+	/**
+	 * gives c to the writer, waits if QUEUE chunks are waiting (the
+	 * writer takes them even after a failure)
+	 */
+	private void handOver(Chunk c) {
+		if(failure != null) throw new UncheckedIOException(failure);
+		try {
+			full.put(c);
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new IOException("recording of "+file+" interrupted", ie));
+		}
+	}
+
+	@Override
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		add(NODE_ADDED,nodeId,null,null,null);
+	}
+
+	@Override
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		add(NODE_REMOVED,nodeId,null,null,null);
+	}
+
+	@Override
+	public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId, String toNodeId, boolean directed) {
+		add(directed ? DIRECTED_EDGE_ADDED : EDGE_ADDED,edgeId,fromNodeId,toNodeId,null);
+	}
+
+	@Override
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		add(EDGE_REMOVED,edgeId,null,null,null);
+	}
+
+	@Override
+	public void graphCleared(String sourceId, long timeId) {
+		add(GRAPH_CLEARED,null,null,null,null);
+	}
+
+	@Override
+	public void stepBegins(String sourceId, long timeId, double step) {
+		add(STEP_BEGINS,null,null,null,step);
+	}
+
+	@Override
+	public void graphAttributeAdded(String sourceId, long timeId, String attribute, Object value) {
+		add(GRAPH_ATTRIBUTE_ADDED,null,attribute,null,value);
+	}
+
+	@Override
+	public void graphAttributeChanged(String sourceId, long timeId, String attribute, Object oldValue, Object newValue) {
+		add(GRAPH_ATTRIBUTE_CHANGED,null,attribute,null,newValue);
+	}
+
+	@Override
+	public void graphAttributeRemoved(String sourceId, long timeId, String attribute) {
+		add(GRAPH_ATTRIBUTE_REMOVED,null,attribute,null,null);
+	}
+
+	@Override
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId, String attribute, Object value) {
+		add(NODE_ATTRIBUTE_ADDED,nodeId,attribute,null,value);
+	}
+
+	@Override
+	public void nodeAttributeChanged(String sourceId, long timeId, String nodeId, String attribute, Object oldValue, Object newValue) {
+		add(NODE_ATTRIBUTE_CHANGED,nodeId,attribute,null,newValue);
+	}
+
+	@Override
+	public void nodeAttributeRemoved(String sourceId, long timeId, String nodeId, String attribute) {
+		add(NODE_ATTRIBUTE_REMOVED,nodeId,attribute,null,null);
+	}
+
+	@Override
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId, String attribute, Object value) {
+		add(EDGE_ATTRIBUTE_ADDED,edgeId,attribute,null,value);
+	}
+
+	@Override
+	public void edgeAttributeChanged(String sourceId, long timeId, String edgeId, String attribute, Object oldValue, Object newValue) {
+		add(EDGE_ATTRIBUTE_CHANGED,edgeId,attribute,null,newValue);
+	}
+
+	@Override
+	public void edgeAttributeRemoved(String sourceId, long timeId, String edgeId, String attribute) {
+		add(EDGE_ATTRIBUTE_REMOVED,edgeId,attribute,null,null);
+	}
+}
@@ -0,0 +1,208 @@
+package proj;
+
+import java.util.Arrays;
+
+/* -----------------------------------------------------------------
+ * On/off state of the links for the Edge-Markovian model, kept
+ * outside of the graph: the graph holds all the links between close
+ * stations, and this layer tells which of them are on. The links
+ * that are off stay in the graph, so they are neither removed nor
+ * recreated from one iteration to the next, and flooding, density
+ * and components only look at the links that are on.
+ * A link is identified by the slots of its two stations, its state
+ * has to be forgotten when it leaves the graph since slots are reused.
+ * -----------------------------------------------------------------
+ * At each time step, a link that is on stays on with probability p
+ * and a link that is off stays off with probability q. Instead of
+ * drawing this for every link at every step, the number of steps
+ * before the next change of a link is drawn from the geometric
+ * distribution of parameter 1-p (or 1-q), and the links are kept in
+ * a heap ordered by the step of their next change: a step only costs
+ * the links that change. The entries of the links that left the
+ * graph (or were drawn again) are discarded when they are popped.
+ * Each draw (the state of a new link, the delay before its next
+ * change) is a function of the seed, the link and the step only,
+ * instead of the next number of a stream: the states do not depend on
+ * the order in which the links are found at a step, which differs
+ * between the topology updates (GRID, KINETIC, VERLET).
+ * -----------------------------------------------------------------
+ */
+public class EdgeMarkovian {
+
+	public final static int NEVER = Integer.MAX_VALUE;
+
+	double p; // probability for a link that is on to stay on
+	double q; // probability for a link that is off to stay off
+	long seed; // of the draws, see uniform
+
+	LongHashSet on; // pairs of slots
+	LongIntHashMap nextChange; // step of the next change of each link with a state
+
+	// heap of the next changes
+	int[] heapStep = new int[16];
+	long[] heapLink = new long[16];
+	int heapSize = 0;
+
+	// links changed by the last step
+	long[] changed = new long[16];
+	int nbChanged = 0;
+
+	public EdgeMarkovian(int expectedSize, double p, double q, long seed) {
+		this.p = p;
+		this.q = q;
+		this.seed = seed;
+		on = new LongHashSet(expectedSize);
+		nextChange = new LongIntHashMap(expectedSize);
+	}
+
+	/**
+	 * @return false if no state has been drawn yet for the link
+	 */
+	public boolean hasState(int u, int v) {
+		return nextChange.containsKey(LongHashSet.pair(u,v));
+	}
+
+	public boolean isOn(int u, int v) {
+		return on.contains(LongHashSet.pair(u,v));
+	}
+
+	/**
+	 * the link appears at the given step: its state is drawn (on or
+	 * off with the same probability), it may change from the next step
+	 * @param u
+	 * @param v
+	 * @param step
+	 * @return true if the link is on
+	 */
+	public boolean add(int u, int v, int step) {
+		long key = LongHashSet.pair(u,v);
+		boolean isOn = uniform(key, step, 0) < 0.5;
+		if(isOn) on.add(key);
+		else on.remove(key);
+		schedule(key, isOn, step);
+		return isOn;
+	}
+
+	/**
+	 * the link leaves the graph
+	 */
+	public void forget(int u, int v) {
+		long key = LongHashSet.pair(u,v);
+		on.remove(key);
+		nextChange.remove(key);
+	}
+
+	/**
+	 * @return the number of links that are on
+	 */
+	public int nbOn() {
+		return on.size();
+	}
+
+	/**
+	 * @return the number of links with a state
+	 */
+	public int nbLinks() {
+		return nextChange.size();
+	}
+
+	/**
+	 * changes the state of the links whose change is due at this
+	 * step, they are then given by nbChanged() and changed(i)
+	 * @param step
+	 */
+	public void step(int step) {
+		nbChanged = 0;
+		while(heapSize > 0 && heapStep[0] <= step) {
+			int due = heapStep[0];
+			long key = heapLink[0];
+			pop();
+			if(nextChange.get(key) != due) continue; // outdated entry
+			boolean isOn = !on.remove(key);
+			if(isOn) on.add(key);
+			schedule(key, isOn, step);
+			if(nbChanged == changed.length) changed = Arrays.copyOf(changed, 2*nbChanged);
+			changed[nbChanged++] = key;
+		}
+	}
+
+	public int nbChanged() {
+		return nbChanged;
+	}
+
+	/**
+	 * @param i
+	 * @return the pair of slots of the i-th link changed by the last step
+	 */
+	public long changed(int i) {
+		return changed[i];
+	}
+
+	/**
+	 * draws the step of the next change of the link
+	 */
+	private void schedule(long key, boolean isOn, int step) {
+		double stay = isOn ? p : q;
+		int next = NEVER;
+		if(stay <= 0) {
+			next = step+1;
+		} else if(stay < 1) {
+			// number of steps until the first change, geometric on 1,2,...
+			double k = 1 + Math.floor(Math.log(1-uniform(key, step, 1))/Math.log(stay));
+			if(k < NEVER-step) next = step+(int)k;
+		}
+		nextChange.put(key, next);
+		if(next != NEVER) push(next, key);
+	}
+
+	/**
+	 * a number in [0,1) given by the link, the step and the kind of the
+	 * draw (SplitMix64 mixing of the three)
+	 */
+	private double uniform(long key, int step, int kind) {
+		long z = mix(seed + key);
+		z = mix(z + (((long)step << 1) | kind));
+		return (z >>> 11) * 0x1.0p-53;
+	}
+
+	static long mix(long z) {
+		z = (z + 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private void push(int step, long key) {
+		if(heapSize == heapStep.length) {
+			heapStep = Arrays.copyOf(heapStep, 2*heapSize);
+			heapLink = Arrays.copyOf(heapLink, 2*heapSize);
+		}
+		int i = heapSize++;
+		while(i > 0) {
+			int parent = (i-1)/2;
+			if(heapStep[parent] <= step) break;
+			heapStep[i] = heapStep[parent];
+			heapLink[i] = heapLink[parent];
+			i = parent;
+		}
+		heapStep[i] = step;
+		heapLink[i] = key;
+	}
+
+	private void pop() {
+		heapSize--;
+		int step = heapStep[heapSize];
+		long key = heapLink[heapSize];
+		int i = 0;
+		while(2*i+1 < heapSize) {
+			int child = 2*i+1;
+			if(child+1 < heapSize && heapStep[child+1] < heapStep[child]) child++;
+			if(heapStep[child] >= step) break;
+			heapStep[i] = heapStep[child];
+			heapLink[i] = heapLink[child];
+			i = child;
+		}
+		heapStep[i] = step;
+		heapLink[i] = key;
+	}
+}
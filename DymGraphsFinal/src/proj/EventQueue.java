@@ -0,0 +1,87 @@
+package proj;
+
+import java.util.Arrays;
+
+/* -----------------------------------------------------------------
+ * Events scheduled at future time steps, with a bounded delay: a
+ * timing wheel with one bucket per time step, so that scheduling an
+ * event and retrieving the events of a step cost O(1) per event,
+ * whatever the number of pending events.
+ * Events are long values whose meaning is left to the caller.
+ * Usage, once at each step t: 
+ *   int n = poll(t); for(int i=0;i<n;i++) ... event(i)
+ * -----------------------------------------------------------------
+ */
+public class EventQueue {
+
+	long[][] buckets;
+	int[] count;
+	int mask;
+	int maxDelay;
+	int size = 0; // number of pending events
+
+	// events of the last polled step
+	long[] due = new long[16];
+	int nbDue = 0;
+
+	/**
+	 * @param maxDelay events are scheduled at most maxDelay steps ahead
+	 */
+	public EventQueue(int maxDelay) {
+		this.maxDelay = maxDelay;
+		int nbBuckets = 2;
+		while(nbBuckets <= maxDelay) nbBuckets *= 2;
+		buckets = new long[nbBuckets][4];
+		count = new int[nbBuckets];
+		mask = nbBuckets-1;
+	}
+
+	/**
+	 * @param now current step
+	 * @param delay between 1 and maxDelay
+	 * @param event
+	 */
+	public void schedule(int now, int delay, long event) {
+		if(delay < 1 || delay > maxDelay) {
+			throw new IllegalArgumentException("delay "+delay+" not in 1.."+maxDelay);
+		}
+		int b = (now+delay) & mask;
+		if(count[b] == buckets[b].length) buckets[b] = Arrays.copyOf(buckets[b], 2*count[b]);
+		buckets[b][count[b]++] = event;
+		size++;
+	}
+
+	/**
+	 * removes the events of the step, they are then given by event(i)
+	 * @param step
+	 * @return the number of events of the step
+	 */
+	public int poll(int step) {
+		int b = step & mask;
+		// the bucket and the buffer are exchanged, so that events can
+		// be scheduled while the due ones are processed
+		long[] t = due;
+		due = buckets[b];
+		buckets[b] = t;
+		nbDue = count[b];
+		count[b] = 0;
+		size -= nbDue;
+		return nbDue;
+	}
+
+	public long event(int i) {
+		return due[i];
+	}
+
+	/**
+	 * removes all the pending events
+	 */
+	public void clear() {
+		Arrays.fill(count, 0);
+		size = 0;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
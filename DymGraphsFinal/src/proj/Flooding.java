@@ -0,0 +1,349 @@
+package proj;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/* -----------------------------------------------------------------
+ * A broadcast (simple flooding, with or without delay) running over
+ * the neighbors given by an Adjacency instead of the graph of the
+ * simulation: the broadcast of a simulation (see
+ * Broadcasting.initBroadcast), of its protocols, or of the replay
+ * of a trace (see Replay), several of them sharing the same
+ * evolution of the topology. The rules are those of the original
+ * simple flooding:
+ * - a station that receives the message for the first time keeps
+ *   it and transmits it once: at the next step, or with delay
+ *   after a Random Assessment Delay of 1 to maxRAD steps (see delay),
+ * - the other transmissions to a station with the message are only
+ *   counted (nbOfReceptions),
+ * - in Scenario 1 the message is lost TTL steps after its reception,
+ *   the station can then receive it again,
+ * - the flooding is finished at the first step without a sender
+ *   (with delay, without pending transmission).
+ * Its state is kept in primitive columns indexed by slot, and it is
+ * a topology listener so that the state of a station is reset when
+ * its slot is released or reused. A step only visits the senders
+ * and their neighbors (and the stations, for the lifetimes of
+ * Scenario 1).
+ * Usage: the Adjacency then the Flooding are listeners of the
+ * topology, start() once the stations are known, then at each step
+ * t: step(t) before the topology of the step is updated, until it
+ * returns true, and statistics(t) after it is updated.
+ * A broadcast is described by a string (see parameters), for
+ * instance SIMPLE_FLOODING_WITH_DELAY:maxRAD=5:seed=3
+ * -----------------------------------------------------------------
+ */
+public class Flooding implements TopologyListener {
+
+	Adjacency topology;
+	SplittableRandom alea; // source, delays: the broadcast stream of the seed
+	Broadcasting shown; // simulation showing the broadcast (styles, step by step), or null
+
+	// parameters, see Broadcasting
+	int broadcastingStrategy = Broadcasting.SIMPLE_FLOODING;
+	int Scenario = 1;
+	int TTL = 3;
+	int maxRAD = 10;
+
+	// state of the stations, by slot
+	int[] uid; // of the station in its slot, see id
+	int nbCreated = 0;
+	int[] lifetime;
+	int[] nbOfReceptions;
+	BitSet hasTheMessage = new BitSet();
+	BitSet notTransmittedYet = new BitSet();
+	BitSet readyToSend = new BitSet();
+
+	int source = -1;
+	long[] senders = new long[16];
+	int nbSenders = 0;
+	long[] nextSenders = new long[16];
+	int nbNextSenders = 0;
+	EventQueue transmissions;
+	long delays; // seed of the delays, see delay
+	int nbIterations = 0;
+	boolean finished = false;
+
+	// results (see statistics)
+	int iterations = 0;
+	int reachedStations = 0;
+	float meanReceptions = 0;
+
+	/**
+	 * @param sim gives the parameters of the broadcast and its seed
+	 * @param topology
+	 */
+	public Flooding(Broadcasting sim, Adjacency topology) {
+		this.topology = topology;
+		alea = new RandomStreams(sim.seed).broadcast;
+		broadcastingStrategy = sim.broadcastingStrategy;
+		Scenario = sim.Scenario;
+		TTL = sim.TTL;
+		maxRAD = sim.maxRAD;
+		int capacity = topology.degree.length;
+		uid = new int[capacity];
+		lifetime = new int[capacity];
+		nbOfReceptions = new int[capacity];
+	}
+
+	/**
+	 * the parameters of the broadcast that differ from those of the
+	 * simulation: broadcastingStrategy, TTL, maxRAD, seed (another
+	 * seed gives another source)
+	 * @param parameters
+	 */
+	public void setParameters(Properties parameters) {
+		for(String key: parameters.stringPropertyNames()) {
+			String value = parameters.getProperty(key).trim();
+			switch(key) {
+			case "broadcastingStrategy": broadcastingStrategy = Broadcasting.constant(value); break;
+			case "TTL": TTL = Integer.parseInt(value); break;
+			case "maxRAD": maxRAD = Integer.parseInt(value); break;
+			case "seed": alea = new RandomStreams(Long.parseLong(value)).broadcast; break;
+			default: throw new IllegalArgumentException("unknown parameter of a broadcast: "+key);
+			}
+		}
+		if(broadcastingStrategy != Broadcasting.SIMPLE_FLOODING && broadcastingStrategy != Broadcasting.SIMPLE_FLOODING_WITH_DELAY) {
+			throw new IllegalArgumentException("not a flooding: "+broadcastingStrategy);
+		}
+		if(maxRAD < 1) throw new IllegalArgumentException("maxRAD must be at least 1 (one step of delay): "+maxRAD);
+	}
+
+	/**
+	 * @param broadcast broadcastingStrategy:key=value:...
+	 * @return its parameters, see setParameters
+	 */
+	static Properties parameters(String broadcast) {
+		String[] fields = broadcast.trim().split(":");
+		Properties parameters = new Properties();
+		parameters.setProperty("broadcastingStrategy", fields[0]);
+		for(int i=1;i<fields.length;i++) {
+			int j = fields[i].indexOf('=');
+			if(j <= 0) throw new IllegalArgumentException("parameter "+fields[i]+" of "+broadcast+" is not of the form key=value");
+			parameters.setProperty(fields[i].substring(0,j), fields[i].substring(j+1));
+		}
+		return parameters;
+	}
+
+	// ---- topology
+
+	public void stationAdded(int s) {
+		if(s >= uid.length) {
+			int capacity = Math.max(2*uid.length, s+1);
+			uid = Arrays.copyOf(uid, capacity);
+			lifetime = Arrays.copyOf(lifetime, capacity);
+			nbOfReceptions = Arrays.copyOf(nbOfReceptions, capacity);
+		}
+		uid[s] = nbCreated++;
+		lifetime[s] = 0;
+		nbOfReceptions[s] = 0;
+		hasTheMessage.clear(s);
+		notTransmittedYet.clear(s);
+		readyToSend.clear(s);
+	}
+
+	public void stationRemoved(int s) {
+		hasTheMessage.clear(s);
+		notTransmittedYet.clear(s);
+		readyToSend.clear(s);
+	}
+
+	public void linkAdded(int u, int v) {}
+
+	public void linkRemoved(int u, int v) {}
+
+	/**
+	 * see StationState.id
+	 */
+	long id(int s) {
+		return ((long)uid[s] << 32) | s;
+	}
+
+	int slotOfId(long id) {
+		int s = (int)id;
+		if(topology.contains(s) && uid[s] == (int)(id >>> 32)) return s;
+		return -1;
+	}
+
+	// ---- broadcast
+
+	/**
+	 * the source is chosen as by Broadcasting.initBroadcast
+	 * @param capacity the number of slots of the simulation (see
+	 * StationState.randomSlot)
+	 */
+	public void start(int capacity) {
+		int s = alea.nextInt(capacity);
+		while(!topology.contains(s)) s = alea.nextInt(capacity);
+		startFrom(s);
+	}
+
+	/**
+	 * the station in slot s is the source, the next number of the 
+	 * stream gives the delays (see MultiSourceFlooding)
+	 * @param s
+	 */
+	void startFrom(int s) {
+		source = s;
+		hasTheMessage.set(s);
+		nbOfReceptions[s] = 0;
+		notTransmittedYet.set(s);
+		if(Scenario == 1) lifetime[s] = TTL;
+		nbIterations = 0;
+		if(broadcastingStrategy == Broadcasting.SIMPLE_FLOODING_WITH_DELAY) {
+			delays = alea.nextLong();
+			transmissions = new EventQueue(maxRAD);
+			transmissions.schedule(0, 1, id(s));
+		}
+		else {
+			senders[0] = id(s);
+			nbSenders = 1;
+		}
+	}
+
+	/**
+	 * every station has the message, has not transmitted it yet and
+	 * will transmit it at the next step (for the benchmarks, see
+	 * HotPathBenchmark)
+	 */
+	void informAll() {
+		nbSenders = 0;
+		nbNextSenders = 0;
+		readyToSend.clear();
+		for(int s=topology.first(); s>=0; s=topology.next(s)) {
+			hasTheMessage.set(s);
+			notTransmittedYet.set(s);
+			nbOfReceptions[s] = 0;
+			lifetime[s] = 0;
+			addNextSender(s);
+		}
+		swapSenders();
+	}
+
+	/**
+	 * the transmissions of step t, then the lifetimes of the messages
+	 * (Scenario 1)
+	 * @param t
+	 * @return true if the broadcast is finished
+	 */
+	public boolean step(int t) {
+		boolean finished = false;
+		nbIterations = t;
+		if(broadcastingStrategy == Broadcasting.SIMPLE_FLOODING) {
+			for(int i=0;i<nbSenders;i++) {
+				int s = slotOfId(senders[i]);
+				if(s >= 0) flood(s);
+			}
+			swapSenders();
+			finished = nbSenders == 0;
+		}
+		else {
+			int nbDue = transmissions.poll(t);
+			for(int i=0;i<nbDue;i++) {
+				int s = slotOfId(transmissions.event(i));
+				if(s >= 0) flood(s);
+			}
+			finished = transmissions.isEmpty();
+		}
+		this.finished = finished;
+		if(Scenario == 1) {
+			for(int s=topology.first(); s>=0; s=topology.next(s)) {
+				if(lifetime[s] > 0 && --lifetime[s] <= 0) {
+					hasTheMessage.clear(s);
+					nbOfReceptions[s] = 0;
+					readyToSend.clear(s);
+					notTransmittedYet.clear(s);
+					if(shown != null) shown.expired(s);
+				}
+			}
+		}
+		return finished;
+	}
+
+	/**
+	 * s sends the message to its neighbors, if it has not transmitted
+	 * it yet (a sender may have lost it meanwhile, Scenario 1)
+	 */
+	void flood(int s) {
+		if(!notTransmittedYet.get(s)) return;
+		if(shown != null) shown.transmitting(s);
+		notTransmittedYet.clear(s);
+		for(int i=0;i<topology.degree(s);i++) {
+			int v = topology.neighbor(s,i);
+			boolean canReceive = Scenario != 1 || lifetime[v] <= 0;
+			if(canReceive && !hasTheMessage.get(v)) {
+				hasTheMessage.set(v);
+				nbOfReceptions[v] = 1;
+				if(broadcastingStrategy == Broadcasting.SIMPLE_FLOODING_WITH_DELAY) {
+					transmissions.schedule(nbIterations, delay(delays,v,nbIterations,maxRAD), id(v));
+				}
+				else addNextSender(v);
+				notTransmittedYet.set(v);
+				if(Scenario == 1) lifetime[v] = TTL;
+				if(shown != null) shown.received(v);
+			}
+			else nbOfReceptions[v]++;
+		}
+	}
+
+	/**
+	 * the Random Assessment Delay of the station in slot s receiving 
+	 * the message at step t: a function of the seed, the slot and the 
+	 * step (as the Edge-Markovian states) instead of the next number 
+	 * of a stream, so that the delays do not depend on the order in 
+	 * which the neighbors of a sender are visited
+	 * @param seed
+	 * @param s
+	 * @param t
+	 * @param maxRAD
+	 * @return between 1 and maxRAD
+	 */
+	static int delay(long seed, int s, int t, int maxRAD) {
+		long z = EdgeMarkovian.mix(EdgeMarkovian.mix(seed + s) + t);
+		return 1+(int)((z >>> 1) % maxRAD);
+	}
+
+	void addNextSender(int s) {
+		if(readyToSend.get(s)) return;
+		readyToSend.set(s);
+		if(nbNextSenders == nextSenders.length) nextSenders = Arrays.copyOf(nextSenders, 2*nbNextSenders);
+		nextSenders[nbNextSenders++] = id(s);
+	}
+
+	void swapSenders() {
+		long[] t = senders;
+		senders = nextSenders;
+		nbSenders = nbNextSenders;
+		nextSenders = t;
+		nbNextSenders = 0;
+		for(int i=0;i<nbSenders;i++) readyToSend.clear((int)senders[i]);
+	}
+
+	/**
+	 * the results of the broadcast after nbIter steps: the stations
+	 * with the message and their mean number of receptions
+	 * @param nbIter
+	 */
+	public void statistics(int nbIter) {
+		iterations = nbIter;
+		int sumOfReceivedMessages = 0;
+		reachedStations = 0;
+		for(int s=topology.first(); s>=0; s=topology.next(s)) {
+			if(hasTheMessage.get(s)) {
+				reachedStations++;
+				sumOfReceivedMessages += nbOfReceptions[s];
+			}
+		}
+		meanReceptions = (float)sumOfReceivedMessages/reachedStations;
+	}
+
+	/**
+	 * @return the results, in the format of Broadcasting.statistics
+	 */
+	public String performance(int d, int mobilityModel) {
+		return "Performance ["+topology.size+"/"+d+"/"+mobilityModel+"/"+broadcastingStrategy+"] "
+				+"("+iterations+","+reachedStations+","+meanReceptions+")";
+	}
+}
@@ -8,6 +8,8 @@ import org.graphstream.graph.Node;
 import org.graphstream.graph.Edge;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class Generator {
 	
@@ -29,11 +31,27 @@ public class Generator {
 
 	
 	public static SingleGraph randomGeometricGraphW(int numberOfNodes, double distanceThrehold, int environmentSize) {
+		return randomGeometricGraphW(numberOfNodes,distanceThrehold,environmentSize,aleaGenerator());
+	}
+	
+	/**
+	 * random geometric graph whose node positions are drawn from alea, 
+	 * so that the same seed gives the same graph
+	 * @param numberOfNodes
+	 * @param distanceThrehold
+	 * @param environmentSize
+	 * @param alea
+	 * @return
+	 */
+	public static SingleGraph randomGeometricGraphW(int numberOfNodes, double distanceThrehold, int environmentSize, RandomGenerator alea) {
 		SingleGraph g = new SingleGraph("random generator");
 		int n = numberOfNodes;
 		int size = environmentSize;
 		double d = distanceThrehold;
-		Random alea = new Random(System.currentTimeMillis());
+		SpatialGrid grid = new SpatialGrid(d,size,n);
+		Node[] nodes = new Node[n];
+		double[] xs = new double[n];
+		double[] ys = new double[n];
 		// Nodes creation with their coordinates
 		for(int i=0;i<n;i++) {
 			Node u = g.addNode("u_"+i);
@@ -42,13 +60,27 @@ public class Generator {
 			double y = alea.nextDouble()*size;
 			u.setAttribute("x",x);
 			u.setAttribute("y",y);
+			nodes[i] = u;
+			xs[i] = x;
+			ys[i] = y;
+			grid.update(i,x,y);
 		}
-		// add edges
-		for(Node u:g.getNodeSet()) {
-			for(Node v:g.getNodeSet()) {
-				if(u.getId() != v.getId()) {
-					if((distance(u,v) < d) && (!u.hasEdgeBetween(v))) {
-						g.addEdge(u.getId()+"--"+v.getId(),u.getId(),v.getId());
+		// add edges, candidates are the nodes of the 9 cells around u,
+		// each pair from its smallest index
+		for(int k=0;k<n;k++) {
+			Node u = nodes[k];
+			int cx = grid.cellX(k);
+			int cy = grid.cellY(k);
+			for(int i=cx-1;i<=cx+1;i++) {
+				for(int j=cy-1;j<=cy+1;j++) {
+					int cell = grid.cell(i,j);
+					if(cell < 0) continue;
+					for(int c=0;c<grid.count(cell);c++) {
+						int w = grid.get(cell,c);
+						Node v = nodes[w];
+						if((k < w) && (Tools.distance(xs[k],ys[k],xs[w],ys[w]) < d)) {
+							g.addEdge(u.getId()+"--"+v.getId(),u,v);
+						}
 					}
 				}
 			}
@@ -66,19 +98,31 @@ public class Generator {
 	 * @return rgg an instance of such a random euclidean graph
 	 */
 	public static SingleGraph randomEuclideanGraph(int n, double d, int envSize) {
+		return randomEuclideanGraph(n,d,envSize,aleaGenerator());
+	}
+
+	/**
+	 * random euclidean graph whose node positions are drawn from alea
+	 * @param n
+	 * @param d
+	 * @param envSize
+	 * @param alea
+	 * @return
+	 */
+	public static SingleGraph randomEuclideanGraph(int n, double d, int envSize, RandomGenerator alea) {
 		SingleGraph rgg = new SingleGraph("RGG: ("+n+","+d+","+envSize+")");
-		Random alea = aleaGenerator();
 		// creation of nodes
 		for(int u=0;u<n;u++) {
 			Node v = rgg.addNode("v_"+u);
 			v.addAttribute("x",alea.nextDouble()*envSize);
 			v.addAttribute("y",alea.nextDouble()*envSize);
 		}
-		// creation of edges
-		for(Node u:rgg.getNodeSet()) {
-			for(Node v:rgg.getNodeSet()) {
-				if(((u != v) && (distance(u,v) < d)) && (!u.hasEdgeBetween(v)))
-					rgg.addEdge(u.getId()+"-"+v.getId(),u.getId(),v.getId());
+		// creation of edges, each pair once
+		for(int i=0;i<n;i++) {
+			Node u = rgg.getNode(i);
+			for(int j=i+1;j<n;j++) {
+				Node v = rgg.getNode(j);
+				if(distance(u,v) < d) rgg.addEdge(u.getId()+"-"+v.getId(),u,v);
 			}
 		}
 		return rgg;
@@ -93,11 +137,21 @@ public class Generator {
 	 * @return
 	 */
 	public static SingleGraph almostErdosRenyi(int n, double proba) {
+		return almostErdosRenyi(n,proba,aleaGenerator());
+	}
+
+	/**
+	 * same, the removed edges being drawn from alea
+	 * @param n
+	 * @param proba
+	 * @param alea
+	 * @return
+	 */
+	public static SingleGraph almostErdosRenyi(int n, double proba, RandomGenerator alea) {
 		SingleGraph myRandomGraph = fullconnected(n);
 		myRandomGraph.display();
 		//Tools.hitakey("Remove edges");
 		ArrayList<Edge> edgesToBeRemoved = new ArrayList<>();
-		Random alea = aleaGenerator();
 		for(Edge e: myRandomGraph.getEdgeSet()) {
 			if(alea.nextDouble() < 1-proba) edgesToBeRemoved.add(e);
 		}
@@ -241,14 +295,12 @@ public class Generator {
 		for(int i=0;i<n;i++) {
 			myGraph.addNode("v_"+i);
 		}
-		// creation of all edges between vertices
-		for(Node u: myGraph.getNodeSet()) {
-			for(Node v: myGraph.getNodeSet()) {
-				// if no edge between vertices and u is not v add an edge
-				if((u.getId() != v.getId()) && 
-						!(u.hasEdgeBetween(v))) {
-					myGraph.addEdge(u.getId()+"--"+v.getId(),u.getId(),v.getId());
-				}
+		// creation of all edges between vertices, each pair once
+		for(int i=0;i<n;i++) {
+			Node u = myGraph.getNode(i);
+			for(int j=i+1;j<n;j++) {
+				Node v = myGraph.getNode(j);
+				myGraph.addEdge(u.getId()+"--"+v.getId(),u,v);
 			}
 		}
 		return myGraph;
@@ -327,7 +379,7 @@ public class Generator {
 	// ================= UTILS ======================
 	
 	
-	public static Node getRandomNeighbor(Random alea, Node u) {
+	public static Node getRandomNeighbor(RandomGenerator alea, Node u) {
 		Node neighbor = null;
 		if(u.getDegree() > 0) {
 			ArrayList<Edge> edges = new ArrayList<>(u.getEdgeSet());
@@ -344,20 +396,46 @@ public class Generator {
 	 * @param nbEdgesToAdd
 	 */
 	public static void densify(SingleGraph graph, int nbEdgesToAdd) {
+		LongHashSet edges = edgeIndex(graph);
 		while(nbEdgesToAdd > 0) {
 			Node u = Toolkit.randomNode(graph);
 			Node v = Toolkit.randomNode(graph);
-			if((u.getId() != v.getId()) && !u.hasEdgeBetween(v)) {
-				graph.addEdge(u.getId()+"-"+v.getId(),u.getId(),v.getId());
+			if((u != v) && edges.add(LongHashSet.pair(u.getIndex(),v.getIndex()))) {
+				graph.addEdge(u.getId()+"-"+v.getId(),u,v);
 				nbEdgesToAdd--;
 			}
 		}
 	}
 	
-	public static Random aleaGenerator() {
-		return new Random(System.currentTimeMillis());
+	/**
+	 * the edges of the graph as pairs of node indices, for testing 
+	 * whether two nodes are linked without looking through their 
+	 * edges. Only valid while no node is removed (indices change).
+	 * @param graph
+	 * @return
+	 */
+	public static LongHashSet edgeIndex(SingleGraph graph) {
+		LongHashSet edges = new LongHashSet(graph.getEdgeCount());
+		for(Edge e: graph.getEdgeSet()) {
+			edges.add(LongHashSet.pair(e.getNode0().getIndex(),e.getNode1().getIndex()));
+		}
+		return edges;
+	}
+	
+	/**
+	 * a new generator for the generators called without one, whose
+	 * seed is drawn from a single sequence: two generators never get
+	 * the same seed (even when created during the same millisecond).
+	 * A run that has to be reproduced passes its own generator (see
+	 * RandomStreams).
+	 * @return
+	 */
+	public static synchronized Random aleaGenerator() {
+		return new Random(seeds.nextLong());
 	}
 	
+	private static final SplittableRandom seeds = new SplittableRandom();
+	
 	/**
 	 * computes the euclidean distance between two nodes 
 	 * @param u
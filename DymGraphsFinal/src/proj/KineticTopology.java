@@ -0,0 +1,312 @@
+package proj;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/* -----------------------------------------------------------------
+ * Kinetic update of the links of the unit-disk graph: instead of
+ * checking all the close pairs of stations at every time step (see
+ * Broadcasting.verifyEdges), the step at which the distance of a
+ * pair crosses d is predicted, and a pair is only checked at this
+ * step, so that the cost of a step is proportional to the number of
+ * links that change.
+ * Between two waypoints a station moves on a straight line at a
+ * constant speed: its trajectory is a segment P + k.V (k time steps
+ * later), and the squared distance of two stations is a polynomial
+ * of degree 2 in k whose roots give the steps at which their link
+ * appears or disappears. The trajectory of a station changes when it
+ * gets close to its destination (it then jumps onto it, see
+ * Broadcasting.moveStraight), when it arrives and when it chooses a
+ * new destination: at the end of each segment, or when the station
+ * is notified by trajectoryChanged, the pairs of the station are
+ * predicted again.
+ * -----------------------------------------------------------------
+ * New pairs are found with certificates on the cells of the spatial
+ * grid: the side of a cell is d, so two stations can only be linked
+ * when they are in the same cell or in two adjacent cells. The step
+ * at which a station leaves its cell is predicted from its segment,
+ * and the station is moved in the grid at that step only: its pairs
+ * with the stations of its new neighbourhood are then predicted.
+ * Thus each pair of stations in adjacent cells is predicted from
+ * the last segments of both stations, no pair is ever scanned twice
+ * without an event, and the cost of a step is proportional to the
+ * number of events (ends of segments, changes of cell, changes of
+ * links) rather than to the number of stations.
+ * Positions are computed step by step by the simulation, so they
+ * differ from the predicted ones by rounding errors: an event is
+ * handled one step early when its crossing is close to a step, and
+ * the actual position is used (actual cell of the station, actual
+ * distance of the pair compared with d, with the same rule as
+ * verifyEdges) before changing anything, the event being predicted
+ * again from there.
+ * Stations are neither added nor removed (Scenario 1 only).
+ * -----------------------------------------------------------------
+ */
+public class KineticTopology {
+
+	public final static double EPSILON = 1e-6; // rounding margin, in steps
+
+	Broadcasting sim;
+	StationState state;
+	SpatialGrid grid;
+	double d;
+	boolean started = false;
+
+	// current segment of the trajectory of each station
+	double[] vx;
+	double[] vy;
+	int[] segmentEnd; // last step of the segment
+	int[] cellChange; // step at which the station is predicted to leave its cell, 0 if none
+
+	EventQueue segments; // ends of the segments, by slot
+	EventQueue cells; // changes of cell, by slot
+	EventQueue checks; // predicted changes of the pairs
+	LongIntHashMap nextCheck; // step of the next check of each pair with a predicted change
+	BitSet changed = new BitSet(); // stations whose trajectory changed during the step
+	int[] changedList = new int[16];
+	int nbChanged = 0;
+
+	/**
+	 * @param sim its stations, grid and links are updated
+	 * @param maxSegment largest number of steps of a segment
+	 */
+	public KineticTopology(Broadcasting sim, int maxSegment) {
+		this.sim = sim;
+		this.state = sim.state;
+		this.grid = sim.grid;
+		this.d = sim.d;
+		vx = new double[state.capacity];
+		vy = new double[state.capacity];
+		segmentEnd = new int[state.capacity];
+		cellChange = new int[state.capacity];
+		int maxDelay = Math.max(1, maxSegment);
+		segments = new EventQueue(maxDelay);
+		cells = new EventQueue(maxDelay);
+		checks = new EventQueue(maxDelay);
+		nextCheck = new LongIntHashMap();
+	}
+
+	/**
+	 * the destination or the speed of station s has changed during
+	 * the current step
+	 * @param s
+	 */
+	public void trajectoryChanged(int s) {
+		if(changed.get(s)) return;
+		changed.set(s);
+		if(nbChanged == changedList.length) changedList = Arrays.copyOf(changedList, 2*nbChanged);
+		changedList[nbChanged++] = s;
+	}
+
+	/**
+	 * the links are updated after the moves of the step: the stations
+	 * whose segment ends are predicted again, the stations that leave
+	 * their cell are moved in the grid and their new pairs predicted,
+	 * then the pairs whose predicted change is due are checked
+	 * @param step current step
+	 */
+	public void update(int step) {
+		if(!started) {
+			start(step);
+			return;
+		}
+		int n = segments.poll(step);
+		for(int i=0;i<n;i++) {
+			int s = (int)segments.event(i);
+			if(segmentEnd[s] == step) trajectoryChanged(s);
+		}
+		n = cells.poll(step);
+		for(int i=0;i<n;i++) {
+			int s = (int)cells.event(i);
+			if(cellChange[s] != step || changed.get(s)) continue; // predicted again since, or below
+			int cell = grid.cellOf[s];
+			grid.update(s,state.x[s],state.y[s]);
+			if(grid.cellOf[s] != cell) checkNeighbours(s,cell,step);
+			nextCellChange(s,step);
+		}
+		for(int i=0;i<nbChanged;i++) {
+			int u = changedList[i];
+			newSegment(u,step);
+			grid.update(u,state.x[u],state.y[u]);
+			nextCellChange(u,step);
+		}
+		for(int i=0;i<nbChanged;i++) checkNeighbours(changedList[i],-1,step);
+		changed.clear();
+		nbChanged = 0;
+		n = checks.poll(step);
+		for(int i=0;i<n;i++) {
+			long pair = checks.event(i);
+			if(nextCheck.get(pair) != step) continue; // predicted again since
+			check((int)(pair >>> 32),(int)pair,step);
+		}
+	}
+
+	/**
+	 * first update: segments and cells of all the stations, and all
+	 * the pairs of adjacent cells are checked and predicted. The long
+	 * links are removed first: the stations may have been moved out
+	 * of their trajectory (for instance onto the streets of the
+	 * Manhattan model).
+	 * @param step
+	 */
+	void start(int step) {
+		started = true;
+		sim.removeLongLinks();
+		changed.clear();
+		nbChanged = 0;
+		for(int s=state.first(); s>=0; s=state.next(s)) {
+			grid.update(s,state.x[s],state.y[s]);
+			newSegment(s,step);
+			nextCellChange(s,step);
+		}
+		for(int u=state.first(); u>=0; u=state.next(u)) {
+			int cx = grid.cellX(u);
+			int cy = grid.cellY(u);
+			for(int ci=cx-1;ci<=cx+1;ci++) {
+				for(int cj=cy-1;cj<=cy+1;cj++) {
+					int cell = grid.cell(ci,cj);
+					if(cell < 0) continue;
+					for(int k=0;k<grid.count(cell);k++) {
+						int v = grid.get(cell,k);
+						if(v > u) check(u,v,step);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * the pairs of u with the stations of the 9 cells around its cell
+	 * are checked and predicted, except those of the cells that were
+	 * already around its previous cell: their pairs were predicted
+	 * from the same segments (the pairs of two stations whose
+	 * trajectory changed are checked once)
+	 * @param u
+	 * @param previous previous cell of u, -1 for all the cells
+	 * @param step
+	 */
+	void checkNeighbours(int u, int previous, int step) {
+		int cx = grid.cellX(u);
+		int cy = grid.cellY(u);
+		int px = (previous < 0) ? Integer.MIN_VALUE/2 : previous/grid.nbCells;
+		int py = (previous < 0) ? Integer.MIN_VALUE/2 : previous%grid.nbCells;
+		for(int ci=cx-1;ci<=cx+1;ci++) {
+			for(int cj=cy-1;cj<=cy+1;cj++) {
+				if(Math.abs(ci-px) <= 1 && Math.abs(cj-py) <= 1) continue;
+				int cell = grid.cell(ci,cj);
+				if(cell < 0) continue;
+				for(int k=0;k<grid.count(cell);k++) {
+					int v = grid.get(cell,k);
+					if(v == u || (changed.get(v) && changed.get(u) && v < u)) continue;
+					check(u,v,step);
+				}
+			}
+		}
+	}
+
+	/**
+	 * predicts the step at which station s leaves its cell on its
+	 * current segment, if it does before the end of the segment
+	 * @param s
+	 * @param step current step
+	 */
+	void nextCellChange(int s, int step) {
+		cellChange[s] = 0;
+		double k = Math.min(exit(state.x[s],vx[s],grid.cellX(s)), exit(state.y[s],vy[s],grid.cellY(s)));
+		if(k == Double.POSITIVE_INFINITY) return;
+		long next = step+Math.max(1, (long)Math.floor(k-EPSILON)+1);
+		if(next > segmentEnd[s]) return; // the end of the segment will predict it again
+		cellChange[s] = (int)next;
+		cells.schedule(step,(int)(next-step),s);
+	}
+
+	/**
+	 * number of steps after which the coordinate p, moving by v at
+	 * each step, leaves the column c (the border columns extend
+	 * beyond the environment, see SpatialGrid.column)
+	 * @param p
+	 * @param v
+	 * @param c
+	 * @return
+	 */
+	double exit(double p, double v, int c) {
+		if(v > 0 && c < grid.nbCells-1) return ((c+1)*grid.cellSize-p)/v;
+		if(v < 0 && c > 0) return (p-c*grid.cellSize)/(-v);
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * segment of the trajectory of s from its current position: its
+	 * move at each step and the step at which it ends
+	 * @param s
+	 * @param step current step
+	 */
+	void newSegment(int s, int step) {
+		if(s >= vx.length) {
+			vx = Arrays.copyOf(vx, state.capacity);
+			vy = Arrays.copyOf(vy, state.capacity);
+			segmentEnd = Arrays.copyOf(segmentEnd, state.capacity);
+			cellChange = Arrays.copyOf(cellChange, state.capacity);
+		}
+		double dx = state.xdest[s]-state.x[s];
+		double dy = state.ydest[s]-state.y[s];
+		double remaining = Math.sqrt(dx*dx+dy*dy);
+		int length = 1;
+		if(remaining > sim.proximityThreshold) {
+			// moves while it is further than the threshold, then jumps
+			double speed = state.speed[s];
+			vx[s] = speed*(dx/remaining);
+			vy[s] = speed*(dy/remaining);
+			length = (int)Math.ceil((remaining-sim.proximityThreshold)/speed - EPSILON);
+			length = Math.max(1, Math.min(length, segments.maxDelay));
+		} else { // jumps onto its destination, or stays there for one step
+			vx[s] = dx;
+			vy[s] = dy;
+		}
+		segmentEnd[s] = step+length;
+		segments.schedule(step,length,s);
+	}
+
+	/**
+	 * the link of u and v is updated according to their distance, then
+	 * the next step at which it may change is predicted
+	 * @param u
+	 * @param v
+	 * @param step current step
+	 */
+	void check(int u, int v, int step) {
+		long pair = LongHashSet.pair(u,v);
+		nextCheck.remove(pair);
+		boolean linked = sim.updateLink(u,v);
+		int last = Math.min(segmentEnd[u], segmentEnd[v]);
+		if(last <= step) return;
+		// squared distance after k steps, minus d^2: a.k^2 + 2b.k + c
+		double px = state.x[v]-state.x[u];
+		double py = state.y[v]-state.y[u];
+		double wx = vx[v]-vx[u];
+		double wy = vy[v]-vy[u];
+		double a = wx*wx+wy*wy;
+		double b = px*wx+py*wy;
+		double c = px*px+py*py-d*d;
+		if(a == 0) return; // constant distance
+		double delta = b*b-a*c;
+		double k; // crossing, in steps from now
+		if(linked) { // leaves the disk after r2
+			if(delta <= 0) k = 0; // at d, only by rounding
+			else k = (-b+Math.sqrt(delta))/a;
+		} else { // enters the disk between r1 and r2
+			if(delta <= 0) return;
+			double root = Math.sqrt(delta);
+			double r1 = (-b-root)/a;
+			double r2 = (-b+root)/a;
+			k = Math.max(0, r1);
+			// no step in between, or the disk is behind
+			if(Math.max(1, Math.floor(k-EPSILON)+1) > r2+EPSILON) return;
+		}
+		long next = step+Math.max(1, (long)Math.floor(k-EPSILON)+1);
+		// otherwise the end of a segment will predict it again
+		if(next > last) return;
+		nextCheck.put(pair,(int)next);
+		checks.schedule(step,(int)(next-step),pair);
+	}
+}
@@ -0,0 +1,130 @@
+package proj;
+
+import java.util.Arrays;
+
+/* -----------------------------------------------------------------
+ * Set of non negative long keys, stored in a single long[] with
+ * open addressing (linear probing), thus without any boxing.
+ * Removals shift back the following keys of the probe sequence,
+ * so that no tombstone is needed.
+ * Iteration: for(int i=0;i<capacity();i++) if(keyAt(i)!=EMPTY) ...
+ * -----------------------------------------------------------------
+ */
+public class LongHashSet {
+
+	public final static long EMPTY = -1L;
+
+	long[] keys;
+	int size = 0;
+	int mask;
+
+	public LongHashSet() {
+		this(16);
+	}
+
+	public LongHashSet(int expectedSize) {
+		int capacity = 16;
+		while(capacity < 2*expectedSize) capacity *= 2;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		mask = capacity-1;
+	}
+
+	/**
+	 * packs the unordered pair {u,v} into a single key
+	 */
+	public final static long pair(int u, int v) {
+		if(u > v) return ((long)v << 32) | u;
+		return ((long)u << 32) | v;
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+
+	public boolean contains(long key) {
+		int i = slot(key);
+		while(keys[i] != EMPTY) {
+			if(keys[i] == key) return true;
+			i = (i+1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * @param key
+	 * @return false if the key was already in the set
+	 */
+	public boolean add(long key) {
+		int i = slot(key);
+		while(keys[i] != EMPTY) {
+			if(keys[i] == key) return false;
+			i = (i+1) & mask;
+		}
+		keys[i] = key;
+		if(++size > keys.length/2) rehash(2*keys.length);
+		return true;
+	}
+
+	/**
+	 * @param key
+	 * @return false if the key was not in the set
+	 */
+	public boolean remove(long key) {
+		int i = slot(key);
+		while(keys[i] != key) {
+			if(keys[i] == EMPTY) return false;
+			i = (i+1) & mask;
+		}
+		// shift back the keys of the probe sequence
+		int hole = i;
+		i = (i+1) & mask;
+		while(keys[i] != EMPTY) {
+			int home = slot(keys[i]);
+			if(((i-home) & mask) >= ((i-hole) & mask)) {
+				keys[hole] = keys[i];
+				hole = i;
+			}
+			i = (i+1) & mask;
+		}
+		keys[hole] = EMPTY;
+		size--;
+		return true;
+	}
+
+	private void rehash(int capacity) {
+		long[] old = keys;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		mask = capacity-1;
+		for(long key: old) {
+			if(key == EMPTY) continue;
+			int i = slot(key);
+			while(keys[i] != EMPTY) i = (i+1) & mask;
+			keys[i] = key;
+		}
+	}
+
+	public void clear() {
+		if(size == 0) return;
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return keys.length;
+	}
+
+	/**
+	 * @param i
+	 * @return the key stored at position i or EMPTY
+	 */
+	public long keyAt(int i) {
+		return keys[i];
+	}
+}
@@ -0,0 +1,124 @@
+package proj;
+
+import java.util.Arrays;
+
+/* -----------------------------------------------------------------
+ * Map from non negative long keys to int values, with the same open
+ * addressing as LongHashSet (linear probing, backward shift on
+ * removal) and the values in a parallel int[], without any boxing.
+ * -----------------------------------------------------------------
+ */
+public class LongIntHashMap {
+
+	public final static long EMPTY = -1L;
+	public final static int MISSING = -1; // value returned for an absent key
+
+	long[] keys;
+	int[] values;
+	int size = 0;
+	int mask;
+
+	public LongIntHashMap() {
+		this(16);
+	}
+
+	public LongIntHashMap(int expectedSize) {
+		int capacity = 16;
+		while(capacity < 2*expectedSize) capacity *= 2;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new int[capacity];
+		mask = capacity-1;
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+
+	public boolean containsKey(long key) {
+		return indexOf(key) >= 0;
+	}
+
+	private int indexOf(long key) {
+		int i = slot(key);
+		while(keys[i] != EMPTY) {
+			if(keys[i] == key) return i;
+			i = (i+1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param key
+	 * @return the value of the key or MISSING
+	 */
+	public int get(long key) {
+		int i = indexOf(key);
+		return (i < 0) ? MISSING : values[i];
+	}
+
+	public void put(long key, int value) {
+		int i = slot(key);
+		while(keys[i] != EMPTY) {
+			if(keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i+1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if(++size > keys.length/2) rehash(2*keys.length);
+	}
+
+	/**
+	 * @param key
+	 * @return false if the key was not in the map
+	 */
+	public boolean remove(long key) {
+		int i = indexOf(key);
+		if(i < 0) return false;
+		// shift back the keys of the probe sequence
+		int hole = i;
+		i = (i+1) & mask;
+		while(keys[i] != EMPTY) {
+			int home = slot(keys[i]);
+			if(((i-home) & mask) >= ((i-hole) & mask)) {
+				keys[hole] = keys[i];
+				values[hole] = values[i];
+				hole = i;
+			}
+			i = (i+1) & mask;
+		}
+		keys[hole] = EMPTY;
+		size--;
+		return true;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new int[capacity];
+		mask = capacity-1;
+		for(int k=0;k<oldKeys.length;k++) {
+			if(oldKeys[k] == EMPTY) continue;
+			int i = slot(oldKeys[k]);
+			while(keys[i] != EMPTY) i = (i+1) & mask;
+			keys[i] = oldKeys[k];
+			values[i] = oldValues[k];
+		}
+	}
+
+	public void clear() {
+		if(size == 0) return;
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+}
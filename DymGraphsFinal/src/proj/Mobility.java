@@ -1,26 +1,39 @@
 package proj;
 
 import org.graphstream.graph.implementations.SingleGraph;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 import org.graphstream.algorithm.Toolkit;
+import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 
 public class Mobility {
 
-	Random alea = new Random(System.currentTimeMillis());
+	RandomStreams random; // all the draws of a run, from its seed
+	RandomGenerator alea;
 	SingleGraph g;
+	LongHashSet links; // edges of g, see Generator.edgeIndex
 	int d = 100;
 	int envSize = 1000;
 	int delay = 20;
 	
 	public Mobility() {
+		this(System.nanoTime());
+	}
+
+	/**
+	 * @param seed of the positions and of the moves
+	 */
+	public Mobility(long seed) {
+		random = new RandomStreams(seed);
+		alea = random.mobility;
 		randomGeometric();
 	}
 	
 
 	private void randomGeometric() {
-		g = Generator.randomGeometricGraphW(150,d,envSize);
+		g = Generator.randomGeometricGraphW(150,d,envSize,random.generator);
+		links = Generator.edgeIndex(g);
 		g.addAttribute("ui.antialias");
 		g.display(false);
 		Tools.hitakey("move");
@@ -47,6 +60,7 @@ public class Mobility {
 		}
 		// movement
 		double proximityThreshold = 4;
+		Pacer pacer = new Pacer(Pacer.FIXED_RATE,1000.0/delay);
 		for(int iter=0;iter<10000;iter++) {
 			for(Node u:g.getNodeSet()) {
 				if((boolean) u.getAttribute("tracking")) {
@@ -72,7 +86,7 @@ public class Mobility {
 				}
 			}
 			verifyEdges();
-			Tools.pause(delay);
+			pacer.tick();
  		}
 	}
 	
@@ -94,6 +108,7 @@ public class Mobility {
 		for(Node u:g.getNodeSet()) chooseDestination(u,maxSpeed,"manhattan");
 		// movement
 		double proximityThreshold = 4;
+		Pacer pacer = new Pacer(Pacer.FIXED_RATE,1000.0/delay);
 		for(int iter=0;iter<10000;iter++) {
 			for(Node u:g.getNodeSet()) {
 				double ux = u.getAttribute("x");
@@ -120,7 +135,7 @@ public class Mobility {
 				}
 			}
 			verifyEdges();
-			Tools.pause(delay);
+			pacer.tick();
  		}
 	}
 	
@@ -136,6 +151,7 @@ public class Mobility {
 		for(Node u:g.getNodeSet()) chooseDestination(u,maxSpeed,"rwp");
 		// movement
 		double proximityThreshold = 4;
+		Pacer pacer = new Pacer(Pacer.FIXED_RATE,1000.0/delay);
 		for(int iter=0;iter<10000;iter++) {
 			for(Node u:g.getNodeSet()) {
 				double ux = u.getAttribute("x");
@@ -162,7 +178,7 @@ public class Mobility {
 				}
 			}
 			verifyEdges();
-			Tools.pause(delay);
+			pacer.tick();
  		}
 	}
 	
@@ -194,6 +210,7 @@ public class Mobility {
 	
 	public void brownianMotion() {
 		int step = 5;
+		Pacer pacer = new Pacer(Pacer.FIXED_RATE,10);
 		for(int iter=0;iter<1000;iter++) {
 			for(Node u:g.getNodeSet()) {
 				double x = u.getAttribute("x");
@@ -204,7 +221,7 @@ public class Mobility {
 				if((ny <= envSize) && (ny >= 0)) u.setAttribute("y",ny);
 			}
 			verifyEdges();
-			Tools.pause(100);
+			pacer.tick();
 		}
 	}
 	
@@ -212,14 +229,17 @@ public class Mobility {
 	 * long edges has to be removed and new ones have to be added
 	 */
 	public void verifyEdges() {
-		for(Node u:g.getNodeSet()) {
-			for(Node v:g.getNodeSet()) {
-				if(u.getId() != v.getId()) {
-					if((Generator.distance(u,v) < d) && (!u.hasEdgeBetween(v))) {
-						g.addEdge(u.getId()+"--"+v.getId(),u.getId(),v.getId());
-					} else if((Generator.distance(u,v) > d) && (u.hasEdgeBetween(v))) {
-						g.removeEdge((u.getEdgeBetween(v)).getId());
-					}
+		int n = g.getNodeCount();
+		for(int i=0;i<n;i++) {
+			Node u = g.getNode(i);
+			for(int j=i+1;j<n;j++) {
+				Node v = g.getNode(j);
+				double dist = Generator.distance(u,v);
+				if((dist < d) && links.add(LongHashSet.pair(i,j))) {
+					g.addEdge(u.getId()+"--"+v.getId(),u,v);
+				} else if((dist > d) && links.remove(LongHashSet.pair(i,j))) {
+					Edge e = u.getEdgeBetween(v);
+					g.removeEdge(e);
 				}
 			}
 		}
@@ -231,7 +251,8 @@ public class Mobility {
 	public static void main(String[] args) {
         System.setProperty("org.graphstream.ui.renderer", 
         		"org.graphstream.ui.j2dviewer.J2DGraphRenderer");
-        new Mobility();
+        if(args.length > 0) new Mobility(Long.parseLong(args[0]));
+        else new Mobility();
 	}
 
 }
@@ -0,0 +1,126 @@
+package proj;
+/* -----------------------------------------------------------------
+ * Monte Carlo runner: many independent replications of the same
+ * headless Broadcasting simulation are executed in parallel on a
+ * fixed thread pool. Each replication has its own graph, its own
+ * state and its own random streams, nothing is shared between the 
+ * tasks. The seed of replication i is drawn from the i-th worker
+ * stream of the seed of the whole run (see RandomStreams.workers),
+ * so the results depend neither on the number of threads nor on the
+ * order in which the replications are run, and any replication can
+ * be replayed alone with its seed (see seeds).
+ * The mean and the 95% confidence interval of the number of
+ * iterations, of reached stations and of receptions per station
+ * are printed at the end.
+ * -----------------------------------------------------------------
+ * java proj.MonteCarlo replications=500 nbNodes=300 mobilityModel=RWP
+ * -----------------------------------------------------------------
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MonteCarlo {
+
+	int replications = 100;
+	int threads = Runtime.getRuntime().availableProcessors();
+	long seed = System.nanoTime();
+	long[] seeds; // seed of each replication
+	Properties parameters; // parameters of each Broadcasting run
+
+	// one line per replication: iterations, reached stations, mean receptions
+	double[][] results;
+
+	public MonteCarlo(Properties parameters) {
+		this.parameters = new Properties();
+		this.parameters.putAll(parameters);
+		String value = (String)this.parameters.remove("replications");
+		if(value != null) replications = Integer.parseInt(value.trim());
+		value = (String)this.parameters.remove("threads");
+		if(value != null) threads = Integer.parseInt(value.trim());
+		value = (String)this.parameters.remove("seed");
+		if(value != null) seed = Long.parseLong(value.trim());
+	}
+
+	/**
+	 * executes all the replications and waits for their results
+	 */
+	public void run() {
+		results = new double[replications][];
+		seeds = new long[replications];
+		SplittableRandom[] streams = new RandomStreams(seed).workers(replications);
+		for(int i=0;i<replications;i++) seeds[i] = streams[i].nextLong();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<double[]>> runs = new ArrayList<>();
+			for(int i=0;i<replications;i++) {
+				final Properties p = new Properties();
+				p.putAll(parameters);
+				p.setProperty("seed", Long.toString(seeds[i]));
+				p.setProperty("printIterations", "false");
+				p.setProperty("printStatistics", "false");
+				runs.add(pool.submit(() -> {
+					Broadcasting b = new Broadcasting(p);
+					return new double[] {b.iterations, b.reachedStations, b.meanReceptions};
+				}));
+			}
+			for(int i=0;i<replications;i++) {
+				results[i] = runs.get(i).get();
+			}
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		} catch(ExecutionException ee) {
+			throw new IllegalStateException("a replication failed", ee.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * mean and half width of the 95% confidence interval of
+	 * column c of the results (undefined values are ignored)
+	 * @param c
+	 * @return
+	 */
+	public double[] meanAndInterval(int c) {
+		double sum = 0, sumOfSquares = 0;
+		int n = 0;
+		for(double[] r: results) {
+			if(r == null || Double.isNaN(r[c]) || Double.isInfinite(r[c])) continue;
+			sum += r[c];
+			sumOfSquares += r[c]*r[c];
+			n++;
+		}
+		if(n == 0) return new double[] {Double.NaN, Double.NaN};
+		double mean = sum/n;
+		double variance = (n > 1) ? (sumOfSquares - n*mean*mean)/(n-1) : 0;
+		return new double[] {mean, 1.96*Math.sqrt(Math.max(0, variance)/n)};
+	}
+
+	public void statistics() {
+		String[] names = {"iterations", "reached stations", "receptions"};
+		StringBuilder line = new StringBuilder("Monte Carlo ["+parameters+"] "+replications+" runs:");
+		for(int c=0;c<names.length;c++) {
+			double[] m = meanAndInterval(c);
+			line.append(String.format(" %s %.3f +/- %.3f", names[c], m[0], m[1]));
+			if(c < names.length-1) line.append(",");
+		}
+		System.out.println(line);
+	}
+
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		MonteCarlo mc = new MonteCarlo(Tools.parameters(args));
+		long start = System.currentTimeMillis();
+		mc.run();
+		mc.statistics();
+		System.out.println("time: "+(System.currentTimeMillis()-start)+" ms on "+mc.threads+" threads");
+	}
+}
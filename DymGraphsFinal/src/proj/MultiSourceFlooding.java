@@ -0,0 +1,395 @@
+package proj;
+
+import java.util.Arrays;
+
+/* -----------------------------------------------------------------
+ * Simple flooding from many sources at once, bit-parallel: each
+ * station holds, for each source, one bit telling whether it has its
+ * message, 64 sources per long. At each step, the stations that
+ * received messages at the previous step send them to their
+ * neighbors by OR-ing their words into the words of the neighbors,
+ * so that one pass over the active links floods all the sources.
+ * The rules are those of Flooding, for each source: a station that
+ * has the message does not receive it again, the transmissions to it
+ * are only counted (receptions, by station and by source), and in
+ * Scenario 1 the message is lost TTL steps after its reception (the
+ * stations keep one word per source and per step of the lifetime,
+ * see planes). The flooding of a source is finished at the first
+ * step without new reception, its results are then taken as by
+ * Flooding.statistics, at the end of the step.
+ * With delay (MULTI_SOURCE_FLOODING_WITH_DELAY), a station transmits
+ * each message once the Random Assessment Delay drawn at its
+ * reception is over (see Flooding.delay): the messages are also kept
+ * in the plane of the step at which they are due (see due), and the
+ * flooding of a source is finished once no station has its message
+ * to transmit (a single flooding with delay also waits for the
+ * delays of the stations that lost the message or left).
+ * The sources are the stations of the first slots at the start,
+ * source i being the station of slot i, and each source gives the
+ * results of a Flooding from its station with the same seed.
+ * Usage: the Adjacency then the flooding are listeners of the
+ * topology, start(), then at each step t: step(t) before the topology of the
+ * step is updated, until it returns true, and measure(t) after.
+ * -----------------------------------------------------------------
+ */
+public class MultiSourceFlooding implements TopologyListener {
+
+	Adjacency topology;
+	int broadcastingStrategy;
+	int Scenario;
+	int TTL;
+	int maxRAD;
+	int nbSources;
+	int words; // longs by station
+
+	// words of the stations, station s from s*words
+	long[] held; // messages held
+	long[] fresh; // messages received and not transmitted yet
+	long[] incoming; // messages sent to the station during the step
+	long[] ever; // messages received at least once
+	long[][] planes; // Scenario 1: messages received at step r, in planes[r % TTL]
+	long[][] due; // with delay: messages to transmit at step r, in due[r % (maxRAD+1)]
+	EventQueue transmissions; // with delay: slots of the stations with messages due
+	long delays; // seed of the delays, see Flooding.delay
+
+	// receptions of the messages held, station s from s*nbSources
+	int[] receptions;
+
+	// sources
+	long[] done; // floodings finished
+	long[] finishing; // floodings finished at the current step
+	long[] active; // sources received by a station during the step
+	int[] iterations; // step at which each flooding is finished
+	int[] reachedStations; // stations with the message at the end
+	int[] informedStations; // stations that received the message at least once
+	float[] meanReceptions; // receptions by reached station at the end
+	int[] sumOfReceivedMessages; // idem, see measure
+
+	/**
+	 * the floodings start from the stations of the nbSources first
+	 * slots, which must be used
+	 * @param sim gives the strategy (with delay or not), Scenario,
+	 * TTL, maxRAD and the seed of the delays
+	 * @param topology
+	 * @param nbSources
+	 */
+	public MultiSourceFlooding(Broadcasting sim, Adjacency topology, int nbSources) {
+		this.topology = topology;
+		this.nbSources = nbSources;
+		broadcastingStrategy = sim.broadcastingStrategy;
+		Scenario = sim.Scenario;
+		TTL = sim.TTL;
+		maxRAD = sim.maxRAD;
+		words = Math.max(1, (nbSources+63)/64);
+		int capacity = topology.degree.length*words;
+		held = new long[capacity];
+		fresh = new long[capacity];
+		incoming = new long[capacity];
+		ever = new long[capacity];
+		if(Scenario == 1 && TTL > 0) planes = new long[TTL][capacity];
+		if(broadcastingStrategy == Broadcasting.MULTI_SOURCE_FLOODING_WITH_DELAY) {
+			due = new long[maxRAD+1][capacity];
+			transmissions = new EventQueue(maxRAD);
+			// the first number of the broadcast stream, as for a Flooding from a given station
+			delays = new RandomStreams(sim.seed).broadcast.nextLong();
+		}
+		receptions = new int[topology.degree.length*nbSources];
+		done = new long[words];
+		finishing = new long[words];
+		active = new long[words];
+		iterations = new int[nbSources];
+		reachedStations = new int[nbSources];
+		informedStations = new int[nbSources];
+		meanReceptions = new float[nbSources];
+		sumOfReceivedMessages = new int[nbSources];
+		// bits beyond the last source
+		if(nbSources % 64 != 0 || nbSources == 0) done[words-1] = -1L << (nbSources % 64);
+	}
+
+	// ---- topology
+
+	public void stationAdded(int s) {
+		if((s+1)*words > held.length) {
+			int capacity = Math.max(2*held.length, (s+1)*words);
+			held = Arrays.copyOf(held, capacity);
+			fresh = Arrays.copyOf(fresh, capacity);
+			incoming = Arrays.copyOf(incoming, capacity);
+			ever = Arrays.copyOf(ever, capacity);
+			if(planes != null) for(int p=0;p<planes.length;p++) planes[p] = Arrays.copyOf(planes[p], capacity);
+			if(due != null) for(int p=0;p<due.length;p++) due[p] = Arrays.copyOf(due[p], capacity);
+		}
+		if((s+1)*nbSources > receptions.length) {
+			receptions = Arrays.copyOf(receptions, Math.max(2*receptions.length, (s+1)*nbSources));
+		}
+		clear(s);
+	}
+
+	public void stationRemoved(int s) {
+		clear(s);
+	}
+
+	public void linkAdded(int u, int v) {}
+
+	public void linkRemoved(int u, int v) {}
+
+	private void clear(int s) {
+		int from = s*words;
+		int to = from+words;
+		Arrays.fill(held, from, to, 0);
+		Arrays.fill(fresh, from, to, 0);
+		Arrays.fill(incoming, from, to, 0);
+		Arrays.fill(ever, from, to, 0);
+		if(planes != null) for(long[] plane: planes) Arrays.fill(plane, from, to, 0);
+		if(due != null) for(long[] plane: due) Arrays.fill(plane, from, to, 0);
+		Arrays.fill(receptions, s*nbSources, (s+1)*nbSources, 0);
+	}
+
+	// ---- flooding
+
+	/**
+	 * the sources have the message, once the stations are known, and
+	 * transmit it at the first step
+	 */
+	public void start() {
+		for(int i=0;i<nbSources;i++) {
+			if(!topology.contains(i)) throw new IllegalArgumentException("source "+i+" is not a station");
+			int k = i*words+i/64;
+			long bit = 1L << (i % 64);
+			held[k] |= bit;
+			fresh[k] |= bit;
+			ever[k] |= bit;
+			// as a reception at step 1, see Broadcasting.initBroadcast
+			if(planes != null) planes[1 % planes.length][k] |= bit;
+			if(due != null) {
+				due[1 % due.length][k] |= bit;
+				transmissions.schedule(0, 1, i);
+			}
+			informedStations[i] = 1;
+		}
+	}
+
+	/**
+	 * the transmissions of step t, then the lifetimes of the messages
+	 * (Scenario 1)
+	 * @param t
+	 * @return true if all the floodings are finished
+	 */
+	public boolean step(int t) {
+		Arrays.fill(active, 0);
+		if(due != null) {
+			// only the stations with messages due at this step
+			int nbDue = transmissions.poll(t);
+			for(int i=0;i<nbDue;i++) {
+				int s = (int)transmissions.event(i);
+				if(topology.contains(s)) transmitWithDelay(s,t); // otherwise it has left the graph
+			}
+		}
+		else {
+			// the fresh messages are sent along the links
+			for(int u=topology.first(); u>=0; u=topology.next(u)) {
+				int deg = topology.degree(u);
+				if(deg == 0) continue;
+				for(int w=0;w<words;w++) {
+					long f = fresh[u*words+w];
+					if(f == 0) continue;
+					for(int i=0;i<deg;i++) {
+						int v = topology.neighbor(u,i);
+						incoming[v*words+w] |= f;
+						count(v,w,f);
+					}
+				}
+			}
+			// receptions: the messages not held yet, sent at the next step
+			for(int v=topology.first(); v>=0; v=topology.next(v)) {
+				for(int w=0;w<words;w++) {
+					int k = v*words+w;
+					long received = incoming[k] & ~held[k];
+					incoming[k] = 0;
+					fresh[k] = 0;
+					if(received != 0) gain(v,w,received,t);
+				}
+			}
+		}
+		// Scenario 1: the messages received TTL steps ago are lost
+		if(planes != null) {
+			long[] expired = planes[(t+1) % planes.length];
+			for(int v=topology.first(); v>=0; v=topology.next(v)) {
+				for(int w=0;w<words;w++) {
+					int k = v*words+w;
+					long lost = held[k] & expired[k];
+					expired[k] = 0;
+					if(lost == 0) continue;
+					held[k] &= ~lost;
+					fresh[k] &= held[k];
+					for(; lost != 0; lost &= lost-1) {
+						receptions[v*nbSources+w*64+Long.numberOfTrailingZeros(lost)] = 0;
+					}
+				}
+			}
+		}
+		if(due != null) {
+			// the floodings with messages still to transmit
+			for(int v=topology.first(); v>=0; v=topology.next(v)) {
+				for(int w=0;w<words;w++) active[w] |= fresh[v*words+w];
+			}
+		}
+		// the floodings without reception are finished
+		boolean finished = true;
+		for(int w=0;w<words;w++) {
+			finishing[w] = ~done[w] & ~active[w];
+			done[w] |= finishing[w];
+			if(done[w] != -1L) finished = false;
+		}
+		return finished;
+	}
+
+	/**
+	 * with delay: u transmits the messages due at step t that it still
+	 * holds, word k of u being at u*words+k. Its neighbors receive them
+	 * at once, and those they did not hold are due after the delay of
+	 * the neighbor.
+	 */
+	private void transmitWithDelay(int u, int t) {
+		long[] now = due[t % due.length];
+		for(int k=0;k<words;k++) {
+			long f = fresh[u*words+k] & now[u*words+k];
+			now[u*words+k] = 0;
+			if(f == 0) continue;
+			fresh[u*words+k] &= ~f;
+			for(int i=0;i<topology.degree(u);i++) {
+				int v = topology.neighbor(u,i);
+				count(v,k,f);
+				long received = f & ~held[v*words+k];
+				if(received == 0) continue;
+				gain(v,k,received,t);
+				int delay = Flooding.delay(delays, v, t, maxRAD);
+				long[] later = due[(t+delay) % due.length];
+				if(later[v*words+k] == 0) transmissions.schedule(t, delay, v);
+				later[v*words+k] |= received;
+			}
+		}
+	}
+
+	/**
+	 * the messages f of the word w are transmitted to v
+	 */
+	private void count(int v, int w, long f) {
+		int from = v*nbSources+w*64;
+		for(; f != 0; f &= f-1) receptions[from+Long.numberOfTrailingZeros(f)]++;
+	}
+
+	/**
+	 * v gets the messages received of the word w at step t
+	 */
+	private void gain(int v, int w, long received, int t) {
+		int k = v*words+w;
+		held[k] |= received;
+		fresh[k] |= received;
+		if(planes != null) planes[t % planes.length][k] |= received;
+		active[w] |= received;
+		long first = received & ~ever[k];
+		if(first == 0) return;
+		ever[k] |= first;
+		for(; first != 0; first &= first-1) {
+			informedStations[w*64+Long.numberOfTrailingZeros(first)]++;
+		}
+	}
+
+	/**
+	 * end of step t: results of the floodings finished at this step
+	 * @param t
+	 */
+	public void measure(int t) {
+		boolean any = false;
+		for(int w=0;w<words;w++) any |= finishing[w] != 0;
+		if(!any) return;
+		for(int w=0;w<words;w++) {
+			for(long bits = finishing[w]; bits != 0; bits &= bits-1) {
+				int i = w*64+Long.numberOfTrailingZeros(bits);
+				iterations[i] = t;
+				reachedStations[i] = 0;
+				sumOfReceivedMessages[i] = 0;
+			}
+		}
+		for(int s=topology.first(); s>=0; s=topology.next(s)) {
+			for(int w=0;w<words;w++) {
+				for(long bits = held[s*words+w] & finishing[w]; bits != 0; bits &= bits-1) {
+					int i = w*64+Long.numberOfTrailingZeros(bits);
+					reachedStations[i]++;
+					sumOfReceivedMessages[i] += receptions[s*nbSources+i];
+				}
+			}
+		}
+		for(int w=0;w<words;w++) {
+			for(long bits = finishing[w]; bits != 0; bits &= bits-1) {
+				int i = w*64+Long.numberOfTrailingZeros(bits);
+				meanReceptions[i] = (float)sumOfReceivedMessages[i]/reachedStations[i];
+			}
+		}
+		Arrays.fill(finishing, 0);
+	}
+
+	/**
+	 * the floodings not finished after nbIter steps are stopped
+	 * @param nbIter
+	 */
+	public void stop(int nbIter) {
+		for(int w=0;w<words;w++) {
+			finishing[w] = ~done[w];
+			done[w] = -1L;
+		}
+		measure(nbIter);
+	}
+
+	/**
+	 * @return the distributions of the results over the sources: min,
+	 * mean, median, 90th percentile and max
+	 */
+	public String distributions(int d, int mobilityModel) {
+		return "Sources ["+topology.size+"/"+d+"/"+mobilityModel+"/"+broadcastingStrategy+"] "
+				+nbSources+" sources: iterations "+distribution(iterations)
+				+", reached stations "+distribution(reachedStations)
+				+", informed stations "+distribution(informedStations)
+				+", receptions "+distribution(meanReceptions);
+	}
+
+	private static String distribution(int[] values) {
+		if(values.length == 0) return "-";
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		double mean = 0;
+		for(int v: sorted) mean += v;
+		mean /= sorted.length;
+		return String.format("%d/%.2f/%d/%d/%d", sorted[0], mean, sorted[sorted.length/2],
+				sorted[(int)(0.9*(sorted.length-1))], sorted[sorted.length-1]);
+	}
+
+	/**
+	 * over the sources that reached stations at the end
+	 */
+	private static String distribution(float[] values) {
+		float[] sorted = new float[values.length];
+		int n = 0;
+		for(float v: values) if(!Float.isNaN(v)) sorted[n++] = v;
+		if(n == 0) return "-";
+		Arrays.sort(sorted, 0, n);
+		return String.format("%.2f/%.2f/%.2f/%.2f/%.2f", sorted[0], mean(values), sorted[n/2],
+				sorted[(int)(0.9*(n-1))], sorted[n-1]);
+	}
+
+	/**
+	 * @param values
+	 * @return the mean of the values, without the NaN of the sources
+	 * that reached no station, NaN if there is none
+	 */
+	static float mean(float[] values) {
+		double sum = 0;
+		int n = 0;
+		for(float v: values) {
+			if(Float.isNaN(v)) continue;
+			sum += v;
+			n++;
+		}
+		return (float)(sum/n);
+	}
+}
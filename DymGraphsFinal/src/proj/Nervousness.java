@@ -0,0 +1,86 @@
+package proj;
+
+/* -----------------------------------------------------------------
+ * Vertex and edge nervousness between two consecutive iterations:
+ * |X(t) sym.diff. X(t-1)| / |X(t) union X(t-1)|
+ * The current sets are updated from the topology changes, and the
+ * elements changed during the iteration are kept with their state
+ * at the previous iteration, so that computing the nervousness only
+ * costs the number of changes and the memory does not grow with the
+ * number of iterations.
+ * Stations are identified by their uid (slots are reused).
+ * -----------------------------------------------------------------
+ */
+public class Nervousness implements TopologyListener {
+
+	StationState state;
+
+	LongHashSet vertices = new LongHashSet();
+	LongHashSet changedVertices = new LongHashSet();
+	LongHashSet verticesBefore = new LongHashSet(); // changed vertices present at t-1
+	int nbVerticesBefore = 0;
+
+	LongHashSet edges = new LongHashSet();
+	LongHashSet changedEdges = new LongHashSet();
+	LongHashSet edgesBefore = new LongHashSet(); // changed edges present at t-1
+	int nbEdgesBefore = 0;
+
+	double vertexNervousness = 0;
+	double edgeNervousness = 0;
+
+	public Nervousness(StationState state) {
+		this.state = state;
+	}
+
+	public void stationAdded(int s) {
+		change(vertices, changedVertices, verticesBefore, state.uid[s], true);
+	}
+
+	public void stationRemoved(int s) {
+		change(vertices, changedVertices, verticesBefore, state.uid[s], false);
+	}
+
+	public void linkAdded(int u, int v) {
+		change(edges, changedEdges, edgesBefore, LongHashSet.pair(state.uid[u],state.uid[v]), true);
+	}
+
+	public void linkRemoved(int u, int v) {
+		change(edges, changedEdges, edgesBefore, LongHashSet.pair(state.uid[u],state.uid[v]), false);
+	}
+
+	private static void change(LongHashSet current, LongHashSet changed, LongHashSet before,
+			long key, boolean present) {
+		if(changed.add(key) && current.contains(key)) before.add(key);
+		if(present) current.add(key);
+		else current.remove(key);
+	}
+
+	/**
+	 * end of an iteration: computes the nervousness compared with
+	 * the previous iteration
+	 */
+	public void iteration() {
+		vertexNervousness = nervousness(vertices, changedVertices, verticesBefore, nbVerticesBefore);
+		nbVerticesBefore = vertices.size();
+		edgeNervousness = nervousness(edges, changedEdges, edgesBefore, nbEdgesBefore);
+		nbEdgesBefore = edges.size();
+	}
+
+	private static double nervousness(LongHashSet current, LongHashSet changed, LongHashSet before,
+			int sizeBefore) {
+		int difference = 0;
+		int added = 0;
+		for(int i=0;i<changed.capacity();i++) {
+			long key = changed.keyAt(i);
+			if(key == LongHashSet.EMPTY) continue;
+			boolean now = current.contains(key);
+			if(now != before.contains(key)) {
+				difference++;
+				if(now) added++;
+			}
+		}
+		changed.clear();
+		before.clear();
+		return (double)difference/(double)(sizeBefore+added);
+	}
+}
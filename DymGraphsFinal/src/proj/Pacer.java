@@ -0,0 +1,157 @@
+package proj;
+
+import java.util.concurrent.locks.LockSupport;
+
+/* -----------------------------------------------------------------
+ * Real-time pacing of the time steps. Sleeping for a fixed delay
+ * after each step makes the period of a step this delay plus the
+ * time of the step, which grows with the number of stations. The
+ * pacer waits instead until the deadline of the step, the deadlines
+ * being computed from the start of the run:
+ * - FIXED_RATE: the k-th step ends at start + k.period, a late step
+ *   is followed by steps without waiting until the run is back on
+ *   schedule (at most MAX_CATCH_UP late periods are caught up, the
+ *   schedule restarts from now beyond),
+ * - DILATION: a step stands for one second of simulated time (the
+ *   speeds are in units per step) and the simulated time runs
+ *   dilation times as fast as the wall clock. This is the schedule
+ *   of FIXED_RATE at dilation steps per second: the simulated time
+ *   is caught up against the wall clock in the same way,
+ * - AS_FAST_AS_POSSIBLE: no wait (headless runs).
+ * The achieved rate is measured in all the modes (see report).
+ * Usage: start() before the first step, tick() after each step,
+ * resume() after the run has been stopped (a key to hit).
+ * -----------------------------------------------------------------
+ */
+public class Pacer {
+
+	// numbered after the constants of Broadcasting (see Broadcasting.constant)
+	public final static int AS_FAST_AS_POSSIBLE = 30;
+	public final static int FIXED_RATE = 31;
+	public final static int DILATION = 32;
+
+	public final static int MAX_CATCH_UP = 10; // late periods caught up
+
+	int mode;
+	long period; // ns, target duration of a step
+	long start; // ns
+	long deadline; // end of the current step
+	long lastTick; // ns, end of the last step
+	long stopped = 0; // ns spent out of the run (see resume)
+	long ticks = 0;
+	long late = 0; // steps that ended after their deadline
+	long dropped = 0; // periods given up
+
+	/**
+	 * @param mode AS_FAST_AS_POSSIBLE, FIXED_RATE or DILATION
+	 * @param rate target number of steps per second (FIXED_RATE), or
+	 * dilation factor of the simulated time (DILATION)
+	 */
+	public Pacer(int mode, double rate) {
+		this.mode = mode;
+		if(mode != AS_FAST_AS_POSSIBLE) {
+			if(rate <= 0) throw new IllegalArgumentException("rate of the pacer: "+rate);
+			period = Math.round(1e9/rate);
+		}
+		start();
+	}
+
+	/**
+	 * the schedule starts now
+	 */
+	public void start() {
+		start = now();
+		deadline = start;
+		lastTick = start;
+		stopped = 0;
+		ticks = 0;
+		late = 0;
+		dropped = 0;
+	}
+
+	/**
+	 * end of a step: waits until its deadline
+	 */
+	public void tick() {
+		ticks++;
+		long now = now();
+		lastTick = now;
+		if(mode == AS_FAST_AS_POSSIBLE) return;
+		deadline += period;
+		if(now > deadline) {
+			late++;
+			long behind = (now-deadline)/period;
+			if(behind > MAX_CATCH_UP) {
+				dropped += behind;
+				deadline += behind*period;
+			}
+			return;
+		}
+		while(now < deadline) {
+			sleep(deadline-now);
+			if(Thread.currentThread().isInterrupted()) return;
+			now = now();
+		}
+		lastTick = now;
+	}
+
+	/**
+	 * @return the wall clock (ns)
+	 */
+	long now() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * waits for at most ns nanoseconds
+	 */
+	void sleep(long ns) {
+		LockSupport.parkNanos(ns);
+	}
+
+	/**
+	 * the run was stopped since the end of the last step (for instance
+	 * waiting for a key): the schedule goes on from now, and this time
+	 * is not counted in the achieved rate
+	 */
+	public void resume() {
+		long now = now();
+		stopped += now-lastTick;
+		lastTick = now;
+		deadline = now;
+	}
+
+	/**
+	 * @return target number of steps per second, infinite if as fast
+	 * as possible
+	 */
+	public double targetRate() {
+		return mode == AS_FAST_AS_POSSIBLE ? Double.POSITIVE_INFINITY : 1e9/period;
+	}
+
+	/**
+	 * @return number of steps per second from the start to the end of
+	 * the last step
+	 */
+	public double achievedRate() {
+		long elapsed = lastTick-start-stopped;
+		return elapsed > 0 ? ticks*1e9/elapsed : 0;
+	}
+
+	/**
+	 * @return the achieved rate versus the target one
+	 */
+	public String report() {
+		switch(mode) {
+		case FIXED_RATE: 
+			return String.format("Pacing [fixed rate] %d steps, %.2f steps/s for %.2f, %d late, %d dropped",
+					ticks, achievedRate(), targetRate(), late, dropped);
+		case DILATION: 
+			return String.format("Pacing [dilation] %d steps, x%.2f for x%.2f, %d late, %d dropped",
+					ticks, achievedRate(), targetRate(), late, dropped);
+		default: 
+			return String.format("Pacing [as fast as possible] %d steps, %.2f steps/s",
+					ticks, achievedRate());
+		}
+	}
+}
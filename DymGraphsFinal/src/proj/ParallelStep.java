@@ -0,0 +1,226 @@
+package proj;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/* -----------------------------------------------------------------
+ * The moves of the stations and the link updates (GRID) executed in
+ * two phases on spatial partitions: the columns of cells of the
+ * spatial grid, whose number only depends on envSize and d. The
+ * partitions are computed in parallel on a fork-join pool, over
+ * primitive arrays only (positions, destinations, cells, index of the
+ * links), then their results are applied to the graph by a single
+ * thread, in the order of the partitions.
+ * Each partition draws from its own stream (see RandomStreams.workers),
+ * whichever thread computes it, so that a run gives exactly the same
+ * results whatever the number of threads (above 1) and the
+ * scheduling of the partitions.
+ * - moves: the stations are sorted by the column of their position.
+ *   Each one computes its next position from the current positions
+ *   into a second buffer, which becomes the positions of StationState
+ *   at the end of the phase. A station that arrived at its destination
+ *   stays there and chooses the next one from the stream of its
+ *   partition; the kinetic topology is then notified of their new
+ *   trajectories.
+ * - links: the pairs closer than d that are not linked are found from
+ *   the stations of each column and the 9 cells around them, and the
+ *   links longer than d from the index of the links, split into as
+ *   many ranges as there are partitions (the index is only read).
+ *   Then the latter are removed and the former added, as in
+ *   Broadcasting.verifyEdges.
+ * The pool lives as long as the simulation (see Broadcasting.close).
+ * -----------------------------------------------------------------
+ */
+public class ParallelStep {
+
+	Broadcasting sim;
+	StationState state;
+	SpatialGrid grid;
+	ForkJoinPool pool;
+	int nbPartitions; // columns of the grid
+	SplittableRandom[] streams; // of each partition
+
+	// stations of partition p, by increasing slot: members[first[p]..first[p+1]-1]
+	int[] first;
+	int[] members = new int[16];
+	// next positions of the stations (double buffer of state.x and state.y)
+	double[] xNext;
+	double[] yNext;
+
+	// results of each partition
+	int[][] arrived; // stations at their destination
+	int[] nbArrived;
+	long[][] longLinks; // pairs of slots
+	int[] nbLongLinks;
+	long[][] newLinks; // pairs of slots (u<v)
+	int[] nbNewLinks;
+
+	/**
+	 * @param sim
+	 * @param threads number of threads of the pool
+	 */
+	public ParallelStep(Broadcasting sim, int threads) {
+		this.sim = sim;
+		this.state = sim.state;
+		this.grid = sim.grid;
+		pool = new ForkJoinPool(threads);
+		nbPartitions = grid.nbCells;
+		streams = sim.random.workers(nbPartitions);
+		first = new int[nbPartitions+1];
+		xNext = new double[state.x.length];
+		yNext = new double[state.y.length];
+		arrived = new int[nbPartitions][16];
+		nbArrived = new int[nbPartitions];
+		longLinks = new long[nbPartitions][16];
+		nbLongLinks = new int[nbPartitions];
+		newLinks = new long[nbPartitions][16];
+		nbNewLinks = new int[nbPartitions];
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * all the stations move according to the mobility model (the three
+	 * models move the stations the same way, see moveRWP)
+	 */
+	public void moveStations() {
+		sortByColumn();
+		if(xNext.length != state.x.length) {
+			xNext = new double[state.x.length];
+			yNext = new double[state.y.length];
+		}
+		double[] nx = xNext;
+		double[] ny = yNext;
+		forEachPartition(p -> {
+			nbArrived[p] = 0;
+			for(int i=first[p];i<first[p+1];i++) {
+				int s = members[i];
+				if(!sim.arrivedAtDestination(s)) sim.moveStraight(s,nx,ny);
+				else {
+					nx[s] = state.x[s];
+					ny[s] = state.y[s];
+					sim.chooseDestination(s,streams[p]);
+					if(nbArrived[p] == arrived[p].length) arrived[p] = Arrays.copyOf(arrived[p], 2*nbArrived[p]);
+					arrived[p][nbArrived[p]++] = s;
+				}
+			}
+		});
+		xNext = state.x;
+		yNext = state.y;
+		state.x = nx;
+		state.y = ny;
+		if(sim.kinetic == null) return;
+		for(int p=0;p<nbPartitions;p++) {
+			for(int i=0;i<nbArrived[p];i++) sim.kinetic.trajectoryChanged(arrived[p][i]);
+		}
+	}
+
+	/**
+	 * the stations by column of their position (counting sort)
+	 */
+	private void sortByColumn() {
+		Arrays.fill(first, 0);
+		int n = 0;
+		for(int s=state.first(); s>=0; s=state.next(s)) {
+			first[grid.column(state.x[s])+1]++;
+			n++;
+		}
+		for(int p=0;p<nbPartitions;p++) first[p+1] += first[p];
+		if(members.length < n) members = new int[Math.max(n, 2*members.length)];
+		int[] end = Arrays.copyOf(first, nbPartitions);
+		for(int s=state.first(); s>=0; s=state.next(s)) members[end[grid.column(state.x[s])]++] = s;
+	}
+
+	/**
+	 * same links as Broadcasting.verifyEdges, computed in parallel
+	 */
+	public void verifyEdges() {
+		for(int s=state.first(); s>=0; s=state.next(s)) grid.update(s,state.x[s],state.y[s]);
+		LongHashSet links = sim.links;
+		int capacity = links.capacity();
+		double d = sim.d;
+		forEachPartition(p -> {
+			// long links, in the range p of the index
+			nbLongLinks[p] = 0;
+			int end = (int)((long)(p+1)*capacity/nbPartitions);
+			for(int i=(int)((long)p*capacity/nbPartitions);i<end;i++) {
+				long pair = links.keyAt(i);
+				if(pair == LongHashSet.EMPTY) continue;
+				if(sim.distance((int)(pair >>> 32),(int)pair) > d) {
+					if(nbLongLinks[p] == longLinks[p].length) longLinks[p] = Arrays.copyOf(longLinks[p], 2*nbLongLinks[p]);
+					longLinks[p][nbLongLinks[p]++] = pair;
+				}
+			}
+			// new links of the stations of the column p, each pair from its smallest slot
+			nbNewLinks[p] = 0;
+			for(int cy=0;cy<grid.nbCells;cy++) {
+				int own = grid.cell(p,cy);
+				for(int k=0;k<grid.count(own);k++) {
+					int u = grid.get(own,k);
+					for(int i=p-1;i<=p+1;i++) {
+						for(int j=cy-1;j<=cy+1;j++) {
+							int cell = grid.cell(i,j);
+							if(cell < 0) continue;
+							for(int l=0;l<grid.count(cell);l++) {
+								int v = grid.get(cell,l);
+								if((u < v) && (sim.distance(u,v) < d) && (!sim.linked(u,v))) {
+									if(nbNewLinks[p] == newLinks[p].length) newLinks[p] = Arrays.copyOf(newLinks[p], 2*nbNewLinks[p]);
+									newLinks[p][nbNewLinks[p]++] = ((long)u << 32) | v;
+								}
+							}
+						}
+					}
+				}
+			}
+		});
+		// single writer: removals, then additions
+		for(int p=0;p<nbPartitions;p++) {
+			for(int i=0;i<nbLongLinks[p];i++) {
+				int u = (int)(longLinks[p][i] >>> 32);
+				int v = (int)longLinks[p][i];
+				sim.removeLink(state.node[u].getEdgeBetween(state.node[v]),u,v);
+			}
+		}
+		for(int p=0;p<nbPartitions;p++) {
+			for(int i=0;i<nbNewLinks[p];i++) {
+				long pair = newLinks[p][i];
+				sim.addLink((int)(pair >>> 32),(int)pair);
+			}
+		}
+	}
+
+	/**
+	 * task(p) for all the partitions p, on the pool
+	 */
+	private void forEachPartition(IntConsumer task) {
+		pool.invoke(new Partitions(task,0,nbPartitions));
+	}
+
+	@SuppressWarnings("serial")
+	private static class Partitions extends RecursiveAction {
+
+		IntConsumer task;
+		int from, to;
+
+		Partitions(IntConsumer task, int from, int to) {
+			this.task = task;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to-from == 1) {
+				task.accept(from);
+				return;
+			}
+			int middle = (from+to)/2;
+			invokeAll(new Partitions(task,from,middle), new Partitions(task,middle,to));
+		}
+	}
+}
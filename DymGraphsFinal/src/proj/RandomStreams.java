@@ -0,0 +1,55 @@
+package proj;
+
+import java.util.SplittableRandom;
+
+/* -----------------------------------------------------------------
+ * Random streams of a simulation, all derived from a single seed:
+ * each part of the simulation draws from its own stream, split from
+ * the root generator in a fixed order, so that
+ * - a run is reproduced bit for bit from its seed,
+ * - the streams are independent (a change in the number of draws of
+ *   one part does not shift the draws of the others),
+ * - parallel workers each get their own stream instead of sharing
+ *   (and contending on) a single generator: a worker is a fixed unit
+ *   of work (a partition of ParallelStep, a replication of MonteCarlo),
+ *   not a thread, so the draws do not depend on the scheduling.
+ * New streams have to be split after the existing ones, otherwise
+ * the runs of a given seed change.
+ * A SplittableRandom is not thread-safe: a stream is used by one
+ * thread at a time.
+ * -----------------------------------------------------------------
+ */
+public class RandomStreams {
+
+	public final long seed;
+	public final SplittableRandom generator; // initial positions of the stations
+	public final SplittableRandom mobility; // destinations and speeds
+	public final SplittableRandom broadcast; // source, delays
+	public final SplittableRandom markov; // states of the links (Edge-Markovian)
+	public final SplittableRandom churn; // removed and added stations (Scenario 2)
+	private final long workersSeed; // root of the streams of the workers
+
+	public RandomStreams(long seed) {
+		this.seed = seed;
+		SplittableRandom root = new SplittableRandom(seed);
+		generator = root.split();
+		mobility = root.split();
+		broadcast = root.split();
+		markov = root.split();
+		churn = root.split();
+		workersSeed = root.nextLong();
+	}
+
+	/**
+	 * one independent stream for each of n workers, the same ones for
+	 * each call with the same n
+	 * @param n
+	 * @return
+	 */
+	public SplittableRandom[] workers(int n) {
+		SplittableRandom root = new SplittableRandom(workersSeed);
+		SplittableRandom[] streams = new SplittableRandom[n];
+		for(int i=0;i<n;i++) streams[i] = root.split();
+		return streams;
+	}
+}
@@ -0,0 +1,161 @@
+package proj;
+/* -----------------------------------------------------------------
+ * Comparison of broadcast strategies on the same evolution of the
+ * graph: the mobility and the topology are computed only once, by a
+ * simulation without broadcast that records them in a trace (see
+ * TraceWriter), then the trace is replayed to each strategy (see
+ * Flooding), in parallel on a fixed thread pool, each replay with
+ * its own reader of the file. The moves and the links are thus paid
+ * once for all the strategies, a replay only costs the decoding of
+ * the changes and the broadcast.
+ * The source and the delays of each strategy are drawn from the
+ * broadcast stream of the seed, as in a simulation: the results of
+ * a strategy are those of a simulation with the same parameters and
+ * the same seed.
+ * The trace covers maxIterations steps, it is written to the file
+ * given by the trace parameter, or to a temporary file.
+ * -----------------------------------------------------------------
+ * java proj.Replay nbNodes=300 seed=42 maxIterations=500
+ *     strategies=SIMPLE_FLOODING,SIMPLE_FLOODING_WITH_DELAY:maxRAD=5,SIMPLE_FLOODING:TTL=1
+ * each strategy is a broadcastingStrategy followed by the parameters
+ * of its broadcast that differ (TTL, maxRAD, seed), separated by ':'
+ * (see Flooding.parameters)
+ * -----------------------------------------------------------------
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Replay {
+
+	int threads = Runtime.getRuntime().availableProcessors();
+	String[] strategies = {"SIMPLE_FLOODING", "SIMPLE_FLOODING_WITH_DELAY"};
+	Properties parameters; // of the simulation
+	String trace;
+	boolean temporary = false; // the trace is deleted at the end
+	Broadcasting sim; // the simulation that recorded the trace
+
+	Flooding[] results; // one by strategy
+
+	public Replay(Properties parameters) {
+		this.parameters = new Properties();
+		this.parameters.putAll(parameters);
+		String value = (String)this.parameters.remove("strategies");
+		if(value != null) strategies = value.trim().split(",");
+		value = (String)this.parameters.remove("threads");
+		if(value != null) threads = Integer.parseInt(value.trim());
+		trace = this.parameters.getProperty("trace");
+	}
+
+	/**
+	 * the simulation without broadcast, which writes the trace
+	 */
+	public void record() {
+		if(trace == null) {
+			try {
+				File file = File.createTempFile("replay", ".trace");
+				file.deleteOnExit();
+				trace = file.getPath();
+				temporary = true;
+			} catch(IOException ioe) {
+				throw new UncheckedIOException("cannot create the trace", ioe);
+			}
+		}
+		Properties p = new Properties();
+		p.putAll(parameters);
+		p.setProperty("trace", trace);
+		p.setProperty("broadcastingStrategy", "NO_BROADCASTING");
+		p.setProperty("printIterations", "false");
+		p.setProperty("printStatistics", "false");
+		if(!p.containsKey("seed")) p.setProperty("seed", Long.toString(System.nanoTime()));
+		sim = new Broadcasting(p);
+	}
+
+	/**
+	 * replays the trace to all the strategies and waits for their
+	 * results
+	 */
+	public void run() {
+		results = new Flooding[strategies.length];
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Flooding>> runs = new ArrayList<>();
+			for(String strategy: strategies) {
+				final Properties broadcast = Flooding.parameters(strategy);
+				runs.add(pool.submit(() -> replay(broadcast)));
+			}
+			for(int i=0;i<strategies.length;i++) {
+				results[i] = runs.get(i).get();
+			}
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		} catch(ExecutionException ee) {
+			throw new IllegalStateException("a replay failed", ee.getCause());
+		} finally {
+			pool.shutdownNow();
+			if(temporary) new File(trace).delete();
+		}
+	}
+
+	/**
+	 * the steps of the trace are replayed to a new broadcast until it
+	 * is finished, as in Broadcasting.step: the transmissions of a
+	 * step, then the changes of the topology
+	 * @param broadcast its parameters
+	 * @return the broadcast, with its results
+	 * @throws IOException
+	 */
+	Flooding replay(Properties broadcast) throws IOException {
+		TraceReader reader = new TraceReader(trace);
+		try {
+			Adjacency topology = new Adjacency(sim.state.capacity);
+			Flooding flooding = new Flooding(sim, topology);
+			flooding.setParameters(broadcast);
+			reader.addTopologyListener(topology);
+			reader.addTopologyListener(flooding);
+			flooding.start(sim.state.capacity);
+			boolean finished = false;
+			int t = 0;
+			while(!finished) {
+				t++;
+				if(t > sim.maxIterations) finished = true;
+				if(flooding.step(t)) finished = true;
+				if(!reader.next()) finished = true; // end of the trace
+			}
+			flooding.statistics(t);
+			return flooding;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * one line by strategy, with the results of Broadcasting.statistics
+	 */
+	public void statistics() {
+		for(int i=0;i<strategies.length;i++) {
+			System.out.println(strategies[i].trim()+": "+results[i].performance(sim.d,sim.mobilityModel));
+		}
+	}
+
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		Replay replay = new Replay(Tools.parameters(args));
+		long start = System.currentTimeMillis();
+		replay.record();
+		long recorded = System.currentTimeMillis();
+		replay.run();
+		replay.statistics();
+		System.out.println("time: "+(recorded-start)+" ms for the trace of "+replay.sim.nbIterations+" steps, "
+				+(System.currentTimeMillis()-recorded)+" ms for "+replay.strategies.length+" replays on "+replay.threads+" threads");
+	}
+}
@@ -0,0 +1,120 @@
+package proj;
+
+import java.util.Arrays;
+
+/* -----------------------------------------------------------------
+ * Uniform grid of square cells covering the environment.
+ * The side of a cell is the distance threshold d of the unit-disk
+ * graph, thus two nodes closer than d are always located either in
+ * the same cell or in two adjacent cells: the candidate neighbors
+ * of a node are the nodes of the 9 cells around its own cell.
+ * The grid is updated as the nodes are moving, a node only changes
+ * of cell when it crosses a cell border.
+ * Nodes are identified by an integer (their station number).
+ * -----------------------------------------------------------------
+ */
+public class SpatialGrid {
+
+	double cellSize;
+	int nbCells; // number of cells on each side of the environment
+	int[][] cells; // ids of the nodes located in each cell
+	int[] cellCount;
+	int[] cellOf; // cell of each node, -1 if the node is not in the grid
+	int[] posInCell; // position of each node within its cell
+
+	public SpatialGrid(double cellSize, int envSize, int capacity) {
+		this.cellSize = cellSize;
+		nbCells = Math.max(1, (int)Math.ceil(envSize/cellSize));
+		cells = new int[nbCells*nbCells][4];
+		cellCount = new int[nbCells*nbCells];
+		cellOf = new int[Math.max(1, capacity)];
+		posInCell = new int[cellOf.length];
+		Arrays.fill(cellOf, -1);
+	}
+
+	/**
+	 * coordinate of the column (or line) containing the position p.
+	 * Positions outside the environment are put into the border cells,
+	 * it does not break the adjacency property.
+	 * @param p
+	 * @return
+	 */
+	public int column(double p) {
+		int c = (int)Math.floor(p/cellSize);
+		if(c < 0) return 0;
+		if(c >= nbCells) return nbCells-1;
+		return c;
+	}
+
+	/**
+	 * inserts node id in the grid or moves it into the cell
+	 * corresponding to its position (x,y)
+	 * @param id
+	 * @param x
+	 * @param y
+	 */
+	public void update(int id, double x, double y) {
+		if(id >= cellOf.length) {
+			int old = cellOf.length;
+			cellOf = Arrays.copyOf(cellOf, Math.max(2*old, id+1));
+			posInCell = Arrays.copyOf(posInCell, cellOf.length);
+			Arrays.fill(cellOf, old, cellOf.length, -1);
+		}
+		int cell = column(x)*nbCells + column(y);
+		if(cellOf[id] == cell) return;
+		if(cellOf[id] >= 0) remove(id);
+		if(cellCount[cell] == cells[cell].length) {
+			cells[cell] = Arrays.copyOf(cells[cell], 2*cells[cell].length);
+		}
+		cells[cell][cellCount[cell]] = id;
+		posInCell[id] = cellCount[cell]++;
+		cellOf[id] = cell;
+	}
+
+	/**
+	 * removes node id from the grid (for instance when the node
+	 * is removed from the graph)
+	 * @param id
+	 */
+	public void remove(int id) {
+		if(id >= cellOf.length || cellOf[id] < 0) return;
+		int cell = cellOf[id];
+		int last = cells[cell][--cellCount[cell]];
+		cells[cell][posInCell[id]] = last;
+		posInCell[last] = posInCell[id];
+		cellOf[id] = -1;
+	}
+
+	/**
+	 * index of the cell (cx,cy)
+	 * @param cx
+	 * @param cy
+	 * @return -1 if the cell is outside the grid
+	 */
+	public int cell(int cx, int cy) {
+		if(cx < 0 || cy < 0 || cx >= nbCells || cy >= nbCells) return -1;
+		return cx*nbCells + cy;
+	}
+
+	/**
+	 * number of nodes located in the cell
+	 */
+	public int count(int cell) {
+		return cellCount[cell];
+	}
+
+	/**
+	 * k-th node of the cell
+	 */
+	public int get(int cell, int k) {
+		return cells[cell][k];
+	}
+
+	public int cellX(int id) {
+		return cellOf[id] / nbCells;
+	}
+
+	public int cellY(int id) {
+		return cellOf[id] % nbCells;
+	}
+}
@@ -0,0 +1,177 @@
+package proj;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/* -----------------------------------------------------------------
+ * State of the stations during a simulation, stored in primitive
+ * columns indexed by the station number (slot) instead of the
+ * attributes of the nodes, so that the simulation loop does not
+ * box any value.
+ * A slot is given to each station when it is added and is kept
+ * until the station is removed, then it can be reused by a new
+ * station. The slot of a node is found from its index in the graph
+ * (Node.getIndex()), so that no attribute is read per edge and per
+ * step. Each station also gets a uid that is never reused, for
+ * identifying it across iterations.
+ * The positions are written to the attributes of the nodes only on
+ * demand (viewer, dgs export): see syncPositions.
+ * -----------------------------------------------------------------
+ */
+public class StationState {
+
+	int capacity;
+	int size = 0; // number of stations
+	BitSet used = new BitSet(); // slots currently given to a station
+
+	Node[] node;
+	int[] slotOfIndex = new int[0]; // by Node.getIndex(), -1 if the node is not a station
+	int[] uid;
+	int nbCreated = 0; // next uid
+	// mobility
+	double[] x;
+	double[] y;
+	double[] xdest;
+	double[] ydest;
+	double[] speed;
+
+	public StationState(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		node = new Node[this.capacity];
+		uid = new int[this.capacity];
+		x = new double[this.capacity];
+		y = new double[this.capacity];
+		xdest = new double[this.capacity];
+		ydest = new double[this.capacity];
+		speed = new double[this.capacity];
+	}
+
+	private void grow() {
+		capacity = 2*capacity;
+		node = Arrays.copyOf(node, capacity);
+		uid = Arrays.copyOf(uid, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		xdest = Arrays.copyOf(xdest, capacity);
+		ydest = Arrays.copyOf(ydest, capacity);
+		speed = Arrays.copyOf(speed, capacity);
+	}
+
+	/**
+	 * u becomes a station, its position is read from its
+	 * "x" and "y" attributes.
+	 * @param u
+	 * @return the slot of the new station
+	 */
+	public int add(Node u) {
+		int s = used.nextClearBit(0);
+		if(s >= capacity) grow();
+		used.set(s);
+		size++;
+		node[s] = u;
+		uid[s] = nbCreated++;
+		x[s] = u.getAttribute("x");
+		y[s] = u.getAttribute("y");
+		xdest[s] = x[s];
+		ydest[s] = y[s];
+		speed[s] = 0;
+		index(u.getIndex(), s);
+		return s;
+	}
+
+	private void index(int i, int s) {
+		if(i >= slotOfIndex.length) {
+			int length = slotOfIndex.length;
+			slotOfIndex = Arrays.copyOf(slotOfIndex, Math.max(2*length, i+1));
+			Arrays.fill(slotOfIndex, length, slotOfIndex.length, -1);
+		}
+		slotOfIndex[i] = s;
+	}
+
+	/**
+	 * the station in slot s leaves the simulation, its node is
+	 * removed from g and its slot is released.
+	 * @param s
+	 * @param g the graph of the node
+	 */
+	public void remove(int s, Graph g) {
+		if(!used.get(s)) return;
+		used.clear(s);
+		size--;
+		int i = node[s].getIndex();
+		g.removeNode(node[s]);
+		// the graph moves its last node into the index of the removed one
+		int last = g.getNodeCount();
+		slotOfIndex[i] = slotOfIndex[last];
+		slotOfIndex[last] = -1;
+		node[s] = null;
+	}
+
+	/**
+	 * @param u a node of the graph of the simulation
+	 * @return its slot, -1 if it is not a station
+	 */
+	public int slotOf(Node u) {
+		int i = u.getIndex();
+		return i < slotOfIndex.length ? slotOfIndex[i] : -1;
+	}
+
+	/**
+	 * identifier of the station in slot s, which stays valid after
+	 * the station has left, unlike its slot that can be reused
+	 * @param s
+	 * @return its uid and its slot packed into a long
+	 */
+	public long id(int s) {
+		return ((long)uid[s] << 32) | s;
+	}
+
+	/**
+	 * @param id see id(s)
+	 * @return the slot of the station or -1 if it has left
+	 */
+	public int slotOfId(long id) {
+		int s = (int)id;
+		if(used.get(s) && uid[s] == (int)(id >>> 32)) return s;
+		return -1;
+	}
+
+	/**
+	 * first slot used by a station, for iterating over the stations:
+	 * for(int s=first(); s>=0; s=next(s))
+	 * @return -1 if there is no station
+	 */
+	public int first() {
+		return used.nextSetBit(0);
+	}
+
+	public int next(int s) {
+		return used.nextSetBit(s+1);
+	}
+
+	/**
+	 * a station chosen uniformly at random
+	 * @param alea
+	 * @return its slot
+	 */
+	public int randomSlot(RandomGenerator alea) {
+		int s = alea.nextInt(capacity);
+		while(!used.get(s)) s = alea.nextInt(capacity);
+		return s;
+	}
+
+	/**
+	 * copies the positions of the stations into the "x" and
+	 * "y" attributes of the nodes (needed by the viewer)
+	 */
+	public void syncPositions() {
+		for(int s=first(); s>=0; s=next(s)) {
+			node[s].setAttribute("x", x[s]);
+			node[s].setAttribute("y", y[s]);
+		}
+	}
+}
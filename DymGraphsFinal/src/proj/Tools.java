@@ -1,25 +1,19 @@
 package proj;
 
 
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.Properties;
+
 import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.GraphParseException;
+import org.graphstream.stream.Sink;
 import org.graphstream.stream.file.FileSinkImages;
 
 public class Tools {
 	
 	
-	/**
-	 * add a delay during the evolution of the graph, 
-	 * mainly for visualization purpose
-	 * @param delay
-	 */
-	public final static void pause(long delay) {
-		try {
-			Thread.sleep(delay);
-		} catch(InterruptedException ie) {}
-	}
-	
-	
 	/**
 	 * Stops the execution of the algorithm operating on 
 	 * the graph and ask the user to hit a key for
@@ -37,20 +31,56 @@ public class Tools {
 	
 	
 	/**
-	 * building a graph from a file containing its dgs 
-	 * description
+	 * building a graph from a file containing its description: 
+	 * a dgs file (possibly compressed) is streamed step by step 
+	 * (see DgsReader) and the graph is the one at the end of the 
+	 * file, the other formats are read by Graph.read
 	 * @param filename
 	 * @return
 	 */
 	public final static SingleGraph read(String filename) {
 		SingleGraph myGraph = new SingleGraph(filename);
 		try {
-			myGraph.read(filename);
-		} catch(Exception e) {}
+			if(!DgsReader.isDgs(filename)) {
+				myGraph.read(filename);
+				return myGraph;
+			}
+			DgsReader reader = new DgsReader(filename);
+			reader.addSink(myGraph);
+			while(reader.nextStep());
+			reader.close();
+		} catch(IOException | GraphParseException e) {
+			throw new IllegalArgumentException("cannot read the graph file "+filename, e);
+		}
 		return myGraph;
 	}
 	
 	
+	/**
+	 * replays the steps of a dgs file from a given step to consumer, 
+	 * one step at a time, without keeping the events in memory (the 
+	 * consumer is first given the graph before this step, see 
+	 * DgsReader.seek)
+	 * @param filename
+	 * @param consumer
+	 * @param fromStep
+	 * @return the number of steps replayed
+	 */
+	public final static int replay(String filename, Sink consumer, double fromStep) {
+		int nbSteps = 0;
+		try {
+			DgsReader reader = new DgsReader(filename);
+			reader.addSink(consumer);
+			if(fromStep > Double.NEGATIVE_INFINITY) reader.seek(fromStep);
+			while(reader.nextStep()) nbSteps++;
+			reader.close();
+		} catch(IOException ioe) {
+			throw new IllegalArgumentException("cannot read the dgs file "+filename, ioe);
+		}
+		return nbSteps;
+	}
+	
+	
 	/**
 	 * writing the dgs description of myGraph into a file 
 	 * @param filename
@@ -63,6 +93,36 @@ public class Tools {
 	}
 	
 	
+	/**
+	 * execution parameters given on the command line as key=value
+	 * pairs. The key config gives a properties file read first, the
+	 * other pairs of the command line override its values.
+	 * @param args
+	 * @return
+	 */
+	public final static Properties parameters(String[] args) {
+		Properties parameters = new Properties();
+		Properties commandLine = new Properties();
+		for(String arg: args) {
+			int i = arg.indexOf('=');
+			if(i <= 0) throw new IllegalArgumentException("parameter "+arg+" is not of the form key=value");
+			String key = arg.substring(0,i);
+			while(key.startsWith("-")) key = key.substring(1);
+			commandLine.setProperty(key, arg.substring(i+1));
+		}
+		String config = (String)commandLine.remove("config");
+		if(config != null) {
+			try(Reader in = new FileReader(config)) {
+				parameters.load(in);
+			} catch(IOException ioe) {
+				throw new IllegalArgumentException("cannot read the configuration file "+config, ioe);
+			}
+		}
+		parameters.putAll(commandLine);
+		return parameters;
+	}
+
+
 	public final static double distance(double x1, double y1, double x2, double y2) {
 		return Math.sqrt((x1-x2)*(x1-x2)+(y1-y2)*(y1-y2));
 	}
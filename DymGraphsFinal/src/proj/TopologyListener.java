@@ -0,0 +1,20 @@
+package proj;
+
+/**
+ * receives the changes of the topology evaluated by the simulation:
+ * stations entering or leaving the graph, and links appearing or
+ * disappearing (for the Edge-Markovian model, only the links whose
+ * state is on). Stations and links are given by their slots.
+ * When a station is removed, its links are removed first; when a
+ * station is added, it is announced before its links.
+ */
+public interface TopologyListener {
+
+	void stationAdded(int s);
+
+	void stationRemoved(int s);
+
+	void linkAdded(int u, int v);
+
+	void linkRemoved(int u, int v);
+}
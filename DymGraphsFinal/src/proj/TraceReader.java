@@ -0,0 +1,318 @@
+package proj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/* -----------------------------------------------------------------
+ * Reader of a binary trace (see TraceWriter for its format), mapped
+ * in memory by windows of the file. The reader holds the graph at
+ * its current step, its stations by slot as StationState does (with
+ * their uid and their position) and its links, and its topology
+ * listeners receive the changes of each step read by next, with the
+ * slots of the reader.
+ * seek goes to any step without reading the file from its start: to
+ * the keyframe just before it, found with the index of the keyframes
+ * (step/KEYFRAME), then by at most KEYFRAME-1 steps. The listeners
+ * are not notified of a seek: they are added at the step where the
+ * replay starts.
+ * -----------------------------------------------------------------
+ */
+public class TraceReader {
+
+	public final static long WINDOW = 1 << 26; // bytes mapped at once
+
+	String file;
+	FileChannel channel;
+	ByteBuffer window; // bytes of the file from windowStart
+	long windowStart = 0;
+	double resolution;
+	int keyframe; // steps between two keyframes
+	long[] keyframes; // offsets of the keyframes
+	long end; // offset of the end of the records
+	int lastStep;
+	long next; // offset of the next record
+	int step = -1; // current step
+	ArrayList<TopologyListener> listeners = new ArrayList<>();
+
+	// graph at the current step, the stations by slot
+	BitSet used = new BitSet();
+	int size = 0;
+	int[] uid = new int[16];
+	long[] qx = new long[16]; // positions in RESOLUTION units
+	long[] qy = new long[16];
+	LongIntHashMap slotOfUid = new LongIntHashMap();
+	LongHashSet links = new LongHashSet(); // pairs of uids
+
+	/**
+	 * opens the file and reads its index, the current step is 0
+	 * @param file
+	 * @throws IOException if the file cannot be read, or is not a
+	 * complete trace
+	 */
+	public TraceReader(String file) throws IOException {
+		this.file = file;
+		channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+		long length = channel.size();
+		if(length < 20+TraceWriter.TRAILER) throw new IOException(file+" is not a trace");
+		ByteBuffer header = map(0, 20);
+		ByteBuffer trailer = map(length-TraceWriter.TRAILER, TraceWriter.TRAILER);
+		if(header.getInt() != TraceWriter.MAGIC || trailer.getInt(16) != TraceWriter.MAGIC) {
+			throw new IOException(file+" is not a complete trace");
+		}
+		if(header.getInt() != TraceWriter.VERSION) throw new IOException(file+": unknown version of trace");
+		resolution = header.getDouble();
+		keyframe = header.getInt();
+		end = trailer.getLong();
+		keyframes = new long[trailer.getInt()];
+		lastStep = trailer.getInt();
+		ByteBuffer index = map(end, 8*keyframes.length);
+		for(int i=0;i<keyframes.length;i++) keyframes[i] = index.getLong();
+		seek(0);
+	}
+
+	/**
+	 * the listener is informed of the current stations and links, 
+	 * then of the changes of the next steps
+	 * @param listener
+	 */
+	public void addTopologyListener(TopologyListener listener) {
+		listeners.add(listener);
+		for(int s=first(); s>=0; s=next(s)) listener.stationAdded(s);
+		for(int i=0;i<links.capacity();i++) {
+			long link = links.keyAt(i);
+			if(link == LongHashSet.EMPTY) continue;
+			listener.linkAdded(slotOfUid.get(link >>> 32),slotOfUid.get(link & 0xffffffffL));
+		}
+	}
+
+	public int getStep() {
+		return step;
+	}
+
+	public int getLastStep() {
+		return lastStep;
+	}
+
+	/**
+	 * the graph becomes the one at the end of step (0: before the
+	 * first step), the listeners are not notified
+	 * @param step between 0 and the last step
+	 * @throws IOException
+	 */
+	public void seek(int step) throws IOException {
+		if(step < 0 || step > lastStep) throw new IllegalArgumentException("step "+step+" not in [0,"+lastStep+"]");
+		int k = Math.min(step/keyframe, keyframes.length-1);
+		// from the current step if it is closer
+		if(this.step > step || this.step < k*keyframe) readKeyframe(keyframes[k]);
+		while(this.step < step) readStep(false);
+	}
+
+	/**
+	 * the graph becomes the one of the next step, its changes are sent
+	 * to the listeners
+	 * @return false if the current step is the last one
+	 * @throws IOException
+	 */
+	public boolean next() throws IOException {
+		if(step >= lastStep) return false;
+		readStep(true);
+		return true;
+	}
+
+	public void close() throws IOException {
+		channel.close();
+		window = null;
+	}
+
+	// ---- graph
+
+	/**
+	 * first slot of a station, for(int s=first(); s>=0; s=next(s))
+	 */
+	public int first() {
+		return used.nextSetBit(0);
+	}
+
+	public int next(int s) {
+		return used.nextSetBit(s+1);
+	}
+
+	public double x(int s) {
+		return qx[s]*resolution;
+	}
+
+	public double y(int s) {
+		return qy[s]*resolution;
+	}
+
+	/**
+	 * @param uid
+	 * @return the slot of the station or -1 if it is not in the graph
+	 */
+	public int slotOf(int uid) {
+		return slotOfUid.get(uid);
+	}
+
+	public boolean linked(int u, int v) {
+		return links.contains(LongHashSet.pair(uid[u],uid[v]));
+	}
+
+	private int addStation(int id, long x, long y) {
+		int s = used.nextClearBit(0);
+		if(s >= uid.length) {
+			uid = Arrays.copyOf(uid, 2*s);
+			qx = Arrays.copyOf(qx, 2*s);
+			qy = Arrays.copyOf(qy, 2*s);
+		}
+		used.set(s);
+		size++;
+		uid[s] = id;
+		qx[s] = x;
+		qy[s] = y;
+		slotOfUid.put(id, s);
+		return s;
+	}
+
+	// ---- records
+
+	private void readKeyframe(long offset) throws IOException {
+		ByteBuffer record = record(offset);
+		if(record.get(0) != TraceWriter.KEY) throw new IOException(file+": no keyframe at "+offset);
+		used.clear();
+		size = 0;
+		slotOfUid.clear();
+		links.clear();
+		step = (int)readVarint(record);
+		int nbStations = (int)readVarint(record);
+		int id = 0;
+		for(int i=0;i<nbStations;i++) {
+			id += (int)readZigzag(record);
+			addStation(id, readZigzag(record), readZigzag(record));
+		}
+		for(long link: readSorted(record)) links.add(link);
+	}
+
+	/**
+	 * applies the next step record, after the keyframe if any
+	 */
+	private void readStep(boolean notify) throws IOException {
+		ByteBuffer record = record(next);
+		while(record.get(0) == TraceWriter.KEY) record = record(next);
+		step = (int)readVarint(record);
+		// removed links, then removed stations
+		for(long link: readSorted(record)) {
+			links.remove(link);
+			if(!notify) continue;
+			int u = slotOfUid.get(link >>> 32);
+			int v = slotOfUid.get(link & 0xffffffffL);
+			for(TopologyListener l: listeners) l.linkRemoved(u,v);
+		}
+		for(long id: readSorted(record)) {
+			int s = slotOfUid.get(id);
+			if(notify) for(TopologyListener l: listeners) l.stationRemoved(s);
+			slotOfUid.remove(id);
+			used.clear(s);
+			size--;
+		}
+		// added stations, then added links
+		long n = readVarint(record);
+		int id = 0;
+		for(long i=0;i<n;i++) {
+			id += (int)readZigzag(record);
+			int s = addStation(id, readZigzag(record), readZigzag(record));
+			if(notify) for(TopologyListener l: listeners) l.stationAdded(s);
+		}
+		for(long link: readSorted(record)) {
+			links.add(link);
+			if(!notify) continue;
+			int u = slotOfUid.get(link >>> 32);
+			int v = slotOfUid.get(link & 0xffffffffL);
+			for(TopologyListener l: listeners) l.linkAdded(u,v);
+		}
+		// moves
+		n = readVarint(record);
+		id = 0;
+		for(long i=0;i<n;i++) {
+			id += (int)readZigzag(record);
+			int s = slotOfUid.get(id);
+			qx[s] += readZigzag(record);
+			qy[s] += readZigzag(record);
+		}
+	}
+
+	/**
+	 * @param offset of a record
+	 * @return its content, from the position after its kind and its
+	 * size (its kind is at index 0), and next is the offset of the
+	 * following record
+	 */
+	private ByteBuffer record(long offset) throws IOException {
+		if(offset >= end) throw new IOException(file+": no record after step "+step);
+		ByteBuffer header = map(offset, (int)Math.min(11, end-offset));
+		header.get(); // kind
+		long size = readVarint(header);
+		int headerSize = header.position();
+		next = offset+headerSize+size;
+		ByteBuffer record = map(offset, (int)(headerSize+size));
+		record.position(headerSize);
+		return record;
+	}
+
+	/**
+	 * @return length bytes of the file from offset, in the current
+	 * window or in a new one
+	 */
+	private ByteBuffer map(long offset, int length) throws IOException {
+		if(window == null || offset < windowStart || offset+length > windowStart+window.capacity()) {
+			windowStart = offset;
+			long size = Math.min(Math.max(WINDOW, length), channel.size()-offset);
+			window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+		}
+		ByteBuffer bytes = window.duplicate();
+		bytes.position((int)(offset-windowStart));
+		bytes = bytes.slice();
+		bytes.limit(length);
+		return bytes;
+	}
+
+	// ---- decoding
+
+	/**
+	 * @return a list written by TraceWriter.writeSorted
+	 */
+	static long[] readSorted(ByteBuffer bytes) {
+		long[] keys = new long[(int)readVarint(bytes)];
+		long u = 0, v = 0;
+		for(int i=0;i<keys.length;i++) {
+			long du = readVarint(bytes);
+			long dv = readVarint(bytes);
+			u += du;
+			v = du == 0 ? v+dv : u+dv;
+			keys[i] = (u << 32) | v;
+		}
+		return keys;
+	}
+
+	static long readVarint(ByteBuffer bytes) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = bytes.get();
+			value |= (long)(b & 0x7f) << shift;
+			shift += 7;
+		} while(b < 0);
+		return value;
+	}
+
+	static long readZigzag(ByteBuffer bytes) {
+		long value = readVarint(bytes);
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
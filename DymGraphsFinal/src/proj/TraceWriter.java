@@ -0,0 +1,318 @@
+package proj;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/* -----------------------------------------------------------------
+ * Binary trace of the evolution of the graph, much smaller and faster
+ * to read than its dgs recording (see DgsRecorder): for each step the
+ * stations and the links added and removed (the active links, see
+ * TopologyListener) and the moves of the stations, and every KEYFRAME
+ * steps the whole graph, so that TraceReader goes to any step from
+ * the last keyframe before it.
+ * Stations are identified by their uid, links by the uids of their
+ * stations, and the positions are rounded to RESOLUTION. Numbers are
+ * written as varints (7 bits by byte), the lists are sorted and delta
+ * encoded, and a move is the difference with the last position
+ * written: a station moving under RWP takes about 5 bytes by step.
+ * The changes are received during the step (the writer is a topology
+ * listener of the simulation) and written at its end, see step: a
+ * station or a link added and removed during the same step is not
+ * written.
+ * -----------------------------------------------------------------
+ * File: header (MAGIC, VERSION, RESOLUTION, KEYFRAME), then records
+ * (their kind, their size as a varint and their content), then the
+ * offsets of the keyframes (longs) and the trailer (offset of these
+ * offsets, number of keyframes, last step, MAGIC).
+ * STEP record: step, removed links, removed stations, added stations
+ * (uid and position), added links, moves (uid and differences).
+ * KEY record: step, stations (uid and position), links. The keyframe
+ * of step k.KEYFRAME follows the changes of this step, the first one
+ * is the graph before the first step (step 0).
+ * -----------------------------------------------------------------
+ */
+public class TraceWriter implements TopologyListener {
+
+	public final static int MAGIC = 0x44594d54; // "DYMT"
+	public final static int VERSION = 1;
+	public final static double RESOLUTION = 1e-3; // of the positions
+	public final static int KEYFRAME = 256; // steps between two keyframes
+	public final static int TRAILER = 20; // bytes
+	public final static int BUFFER = 1 << 20; // bytes of the output buffer
+
+	// kinds of the records
+	final static byte STEP = 1;
+	final static byte KEY = 2;
+
+	String file;
+	StationState state;
+	DataOutputStream out;
+	long offset = 0; // in the file
+	long[] keyframes = new long[16]; // offsets of the keyframes
+	int nbKeyframes = 0;
+	int lastStep = 0;
+
+	// last positions written, by slot
+	long[] qx;
+	long[] qy;
+	LongHashSet links = new LongHashSet(); // pairs of uids of the active links
+	// changes of the current step
+	LongHashSet addedLinks = new LongHashSet();
+	LongHashSet removedLinks = new LongHashSet();
+	LongHashSet addedStations = new LongHashSet(); // uids
+	int[] addedSlots = new int[16];
+	int nbAddedSlots = 0;
+	long[] removedStations = new long[16]; // uids
+	int nbRemovedStations = 0;
+
+	Bytes record = new Bytes();
+	Bytes moves = new Bytes();
+
+	/**
+	 * the file is opened and the graph of sim is written as the
+	 * keyframe of step 0
+	 * @param sim
+	 * @param file
+	 * @throws IOException if the file cannot be written
+	 */
+	public TraceWriter(Broadcasting sim, String file) throws IOException {
+		this.file = file;
+		this.state = sim.state;
+		qx = new long[state.capacity];
+		qy = new long[state.capacity];
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeDouble(RESOLUTION);
+		out.writeInt(KEYFRAME);
+		offset = 20;
+		sim.addTopologyListener(this); // the current stations and links
+		clearChanges();
+		for(int s=state.first(); s>=0; s=state.next(s)) setPosition(s);
+		keyframe(0);
+	}
+
+	// ---- changes during the step
+
+	public void stationAdded(int s) {
+		addedStations.add(state.uid[s]);
+		if(nbAddedSlots == addedSlots.length) addedSlots = Arrays.copyOf(addedSlots, 2*nbAddedSlots);
+		addedSlots[nbAddedSlots++] = s;
+	}
+
+	public void stationRemoved(int s) {
+		if(addedStations.remove(state.uid[s])) return;
+		if(nbRemovedStations == removedStations.length) removedStations = Arrays.copyOf(removedStations, 2*nbRemovedStations);
+		removedStations[nbRemovedStations++] = state.uid[s];
+	}
+
+	public void linkAdded(int u, int v) {
+		long link = LongHashSet.pair(state.uid[u],state.uid[v]);
+		links.add(link);
+		if(!removedLinks.remove(link)) addedLinks.add(link);
+	}
+
+	public void linkRemoved(int u, int v) {
+		long link = LongHashSet.pair(state.uid[u],state.uid[v]);
+		links.remove(link);
+		if(!addedLinks.remove(link)) removedLinks.add(link);
+	}
+
+	// ---- records
+
+	/**
+	 * end of a step: its changes are written, followed by a keyframe
+	 * every KEYFRAME steps
+	 * @param step
+	 */
+	public void step(int step) {
+		record.clear();
+		record.writeVarint(step);
+		writeSorted(record, keys(removedLinks));
+		Arrays.sort(removedStations, 0, nbRemovedStations);
+		writeSorted(record, Arrays.copyOf(removedStations, nbRemovedStations));
+		// the new stations, with their position
+		int nbAdded = 0;
+		for(int i=0;i<nbAddedSlots;i++) {
+			int s = addedSlots[i];
+			if(state.used.get(s) && addedStations.contains(state.uid[s])) addedSlots[nbAdded++] = s;
+		}
+		record.writeVarint(nbAdded);
+		int previous = 0;
+		for(int i=0;i<nbAdded;i++) {
+			int s = addedSlots[i];
+			setPosition(s);
+			record.writeZigzag(state.uid[s]-previous);
+			record.writeZigzag(qx[s]);
+			record.writeZigzag(qy[s]);
+			previous = state.uid[s];
+		}
+		writeSorted(record, keys(addedLinks));
+		// moves of the other stations
+		moves.clear();
+		int nbMoves = 0;
+		previous = 0;
+		for(int s=state.first(); s>=0; s=state.next(s)) {
+			long x = Math.round(state.x[s]/RESOLUTION);
+			long y = Math.round(state.y[s]/RESOLUTION);
+			if(x == qx[s] && y == qy[s]) continue; // the new stations are there
+			moves.writeZigzag(state.uid[s]-previous);
+			moves.writeZigzag(x-qx[s]);
+			moves.writeZigzag(y-qy[s]);
+			qx[s] = x;
+			qy[s] = y;
+			previous = state.uid[s];
+			nbMoves++;
+		}
+		record.writeVarint(nbMoves);
+		record.write(moves);
+		write(STEP, record);
+		clearChanges();
+		lastStep = step;
+		if(step % KEYFRAME == 0) keyframe(step);
+	}
+
+	/**
+	 * the whole graph at the end of step
+	 */
+	private void keyframe(int step) {
+		if(nbKeyframes == keyframes.length) keyframes = Arrays.copyOf(keyframes, 2*nbKeyframes);
+		keyframes[nbKeyframes++] = offset;
+		record.clear();
+		record.writeVarint(step);
+		record.writeVarint(state.size);
+		int previous = 0;
+		for(int s=state.first(); s>=0; s=state.next(s)) {
+			record.writeZigzag(state.uid[s]-previous);
+			record.writeZigzag(qx[s]);
+			record.writeZigzag(qy[s]);
+			previous = state.uid[s];
+		}
+		writeSorted(record, keys(links));
+		write(KEY, record);
+	}
+
+	/**
+	 * writes the offsets of the keyframes and the trailer, then closes
+	 * the file
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		long index = offset;
+		for(int i=0;i<nbKeyframes;i++) out.writeLong(keyframes[i]);
+		out.writeLong(index);
+		out.writeInt(nbKeyframes);
+		out.writeInt(lastStep);
+		out.writeInt(MAGIC);
+		out.close();
+	}
+
+	private void write(byte kind, Bytes content) {
+		try {
+			out.writeByte(kind);
+			int header = 1+writeVarint(out, content.size);
+			out.write(content.data, 0, content.size);
+			offset += header+content.size;
+		} catch(IOException ioe) {
+			throw new UncheckedIOException("cannot write the trace "+file, ioe);
+		}
+	}
+
+	private void setPosition(int s) {
+		if(s >= qx.length) {
+			qx = Arrays.copyOf(qx, state.capacity);
+			qy = Arrays.copyOf(qy, state.capacity);
+		}
+		qx[s] = Math.round(state.x[s]/RESOLUTION);
+		qy[s] = Math.round(state.y[s]/RESOLUTION);
+	}
+
+	private void clearChanges() {
+		addedLinks.clear();
+		removedLinks.clear();
+		addedStations.clear();
+		nbAddedSlots = 0;
+		nbRemovedStations = 0;
+	}
+
+	// ---- encoding
+
+	/**
+	 * @return the keys of set, sorted
+	 */
+	private static long[] keys(LongHashSet set) {
+		long[] keys = new long[set.size()];
+		int n = 0;
+		for(int i=0;i<set.capacity();i++) {
+			long key = set.keyAt(i);
+			if(key != LongHashSet.EMPTY) keys[n++] = key;
+		}
+		Arrays.sort(keys);
+		return keys;
+	}
+
+	/**
+	 * a sorted list of uids, or of pairs of uids (see LongHashSet.pair):
+	 * its size, then the differences of the first uids and the second
+	 * uid minus the first one, or minus the previous second uid if the
+	 * first one is the same
+	 */
+	static void writeSorted(Bytes bytes, long[] keys) {
+		bytes.writeVarint(keys.length);
+		long u0 = 0, v0 = 0;
+		for(long key: keys) {
+			long u = key >>> 32;
+			long v = key & 0xffffffffL;
+			bytes.writeVarint(u-u0);
+			bytes.writeVarint(u == u0 ? v-v0 : v-u);
+			u0 = u;
+			v0 = v;
+		}
+	}
+
+	private static int writeVarint(DataOutputStream out, long value) throws IOException {
+		int n = 1;
+		while((value & ~0x7fL) != 0) {
+			out.writeByte((int)((value & 0x7f) | 0x80));
+			value >>>= 7;
+			n++;
+		}
+		out.writeByte((int)value);
+		return n;
+	}
+
+	/**
+	 * growable array of bytes
+	 */
+	static class Bytes {
+		byte[] data = new byte[1024];
+		int size = 0;
+
+		void clear() {
+			size = 0;
+		}
+
+		void writeVarint(long value) {
+			if(size+10 > data.length) data = Arrays.copyOf(data, 2*data.length);
+			while((value & ~0x7fL) != 0) {
+				data[size++] = (byte)((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			data[size++] = (byte)value;
+		}
+
+		void writeZigzag(long value) {
+			writeVarint((value << 1) ^ (value >> 63));
+		}
+
+		void write(Bytes bytes) {
+			if(size+bytes.size > data.length) data = Arrays.copyOf(data, Math.max(2*data.length, size+bytes.size));
+			System.arraycopy(bytes.data, 0, data, size, bytes.size);
+			size += bytes.size;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package proj;
+
+import java.util.Arrays;
+
+/* -----------------------------------------------------------------
+ * Verlet lists of the unit-disk graph: each station keeps the list of
+ * the stations that were closer than d + skin when the lists were
+ * built. As long as no station has moved by more than skin/2 since
+ * then, two stations that are not in the lists of each other are
+ * still further than d, so the links are only looked for in these
+ * short lists (each pair once) instead of in the 9 cells around each
+ * station. The lists are built again, with the spatial grid, as soon
+ * as a station has moved by more than skin/2; the grid is only
+ * updated at these rebuilds.
+ * A new station (Scenario 2) gets its own list at once, with all the
+ * stations around it, which are also the candidates of its first
+ * links (see Broadcasting.linkNewStation). The lists hold slots: an
+ * entry of a removed station, or of the new station given its slot,
+ * is only checked for nothing until the next rebuild.
+ * -----------------------------------------------------------------
+ */
+public class VerletLists {
+
+	Broadcasting sim;
+	StationState state;
+	SpatialGrid grid;
+	double d;
+	double skin;
+	boolean built = false;
+
+	int[][] list; // candidate neighbors of each station
+	int[] listSize;
+	// positions at the last rebuild (or when the station was added)
+	double[] x0;
+	double[] y0;
+
+	/**
+	 * @param sim its stations, grid and links are updated
+	 * @param skin margin of the lists beyond d
+	 */
+	public VerletLists(Broadcasting sim, double skin) {
+		this.sim = sim;
+		this.state = sim.state;
+		this.grid = sim.grid;
+		this.d = sim.d;
+		this.skin = skin;
+		list = new int[state.capacity][];
+		listSize = new int[state.capacity];
+		x0 = new double[state.capacity];
+		y0 = new double[state.capacity];
+	}
+
+	/**
+	 * the links are updated after the moves of the step: the long
+	 * links are removed and the new ones are looked for in the lists
+	 */
+	public void update() {
+		if(!built || moved()) rebuild();
+		sim.removeLongLinks();
+		for(int u=state.first(); u>=0; u=state.next(u)) addLinks(u);
+	}
+
+	/**
+	 * @return true if a station has moved by more than skin/2 since
+	 * the lists were built
+	 */
+	boolean moved() {
+		double max = (skin/2)*(skin/2);
+		for(int s=state.first(); s>=0; s=state.next(s)) {
+			double dx = state.x[s]-x0[s];
+			double dy = state.y[s]-y0[s];
+			if(dx*dx+dy*dy > max) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * the lists of all the stations, from their current positions
+	 */
+	void rebuild() {
+		built = true;
+		for(int s=state.first(); s>=0; s=state.next(s)) {
+			grid.update(s,state.x[s],state.y[s]);
+			reset(s);
+		}
+		for(int u=state.first(); u>=0; u=state.next(u)) fill(u,false);
+	}
+
+	/**
+	 * the stations have just been added (Scenario 2): their lists are
+	 * built, then their links are added from their lists by
+	 * Broadcasting.linkNewStation, as addToGraph does from the grid
+	 * @param added slots of the new stations
+	 */
+	public void stationsAdded(int[] added) {
+		for(int s:added) {
+			grid.update(s,state.x[s],state.y[s]);
+			reset(s);
+		}
+		for(int s:added) fill(s,true);
+		for(int s:added) sim.linkNewStation(s,list[s],listSize[s]);
+	}
+
+	/**
+	 * empty list of s, which starts from its current position
+	 */
+	private void reset(int s) {
+		if(s >= list.length) {
+			list = Arrays.copyOf(list, state.capacity);
+			listSize = Arrays.copyOf(listSize, state.capacity);
+			x0 = Arrays.copyOf(x0, state.capacity);
+			y0 = Arrays.copyOf(y0, state.capacity);
+		}
+		if(list[s] == null) list[s] = new int[8];
+		listSize[s] = 0;
+		x0[s] = state.x[s];
+		y0[s] = state.y[s];
+	}
+
+	/**
+	 * the stations of the grid closer than d + skin are put in the list
+	 * of u: all of them for a new station, otherwise only those with a
+	 * larger slot, so that each pair is in a single list
+	 * @param u
+	 * @param all
+	 */
+	private void fill(int u, boolean all) {
+		double radius = d+skin;
+		int r = (int)Math.ceil(radius/grid.cellSize);
+		int cx = grid.cellX(u);
+		int cy = grid.cellY(u);
+		for(int i=cx-r;i<=cx+r;i++) {
+			for(int j=cy-r;j<=cy+r;j++) {
+				int cell = grid.cell(i,j);
+				if(cell < 0) continue;
+				for(int k=0;k<grid.count(cell);k++) {
+					int v = grid.get(cell,k);
+					if(v == u || (!all && v < u)) continue;
+					if(Tools.distance(x0[u],y0[u],x0[v],y0[v]) <= radius) {
+						if(listSize[u] == list[u].length) list[u] = Arrays.copyOf(list[u], 2*listSize[u]);
+						list[u][listSize[u]++] = v;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * the links of u with the stations of its list closer than d
+	 * @param u
+	 */
+	private void addLinks(int u) {
+		int[] l = list[u];
+		for(int i=0;i<listSize[u];i++) {
+			int v = l[i];
+			if(!state.used.get(v)) continue; // removed station
+			if(sim.distance(u,v) < d && !sim.linked(u,v)) sim.addLink(u,v);
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package proj;
+
+/* -----------------------------------------------------------------
+ * Displayed simulation with the renderer of gs-ui, which is only a
+ * dependency of this module: the core (and its batch jar) does not
+ * load any viewer class.
+ * -----------------------------------------------------------------
+ */
+public class Visual {
+
+	public static void main(String[] args) {
+		System.setProperty("org.graphstream.ui.renderer",
+				"org.graphstream.ui.j2dviewer.J2DGraphRenderer");
+		new Broadcasting();
+	}
+}